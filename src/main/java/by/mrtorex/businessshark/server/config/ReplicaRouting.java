@@ -0,0 +1,58 @@
+package by.mrtorex.businessshark.server.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Разрешение текущему запросу читать данные с реплики базы данных.
+ * По умолчанию все обращения идут на основной сервер; диспетчер запросов разрешает реплику
+ * на время выполнения запросов на чтение (см. {@link SessionConfig#openReadSession()}).
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<Boolean> current = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Выполняет действие с заданным разрешением чтения с реплики. Прежнее значение потока восстанавливается.
+     *
+     * @param replicaAllowed разрешено ли чтение с реплики
+     * @param action         действие
+     * @param <T>            тип результата
+     * @return результат действия
+     */
+    public static <T> T call(boolean replicaAllowed, Supplier<T> action) {
+        Boolean previous = current.get();
+        current.set(replicaAllowed);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Связывает действие с разрешением текущего потока, чтобы выполнить его в другом потоке.
+     *
+     * @param action действие
+     * @param <T>    тип результата
+     * @return действие, выполняемое с разрешением текущего потока
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> action) {
+        Boolean replicaAllowed = current.get();
+        return replicaAllowed == null ? action : () -> call(replicaAllowed, action);
+    }
+
+    /**
+     * Проверяет, разрешено ли текущему запросу читать с реплики.
+     *
+     * @return true, если чтение с реплики разрешено
+     */
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(current.get());
+    }
+}
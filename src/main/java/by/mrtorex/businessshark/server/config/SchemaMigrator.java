@@ -0,0 +1,140 @@
+package by.mrtorex.businessshark.server.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Версионные миграции схемы базы данных.
+ * Миграции хранятся в ресурсах {@value #MIGRATION_PATH} и применяются по порядку номеров версий,
+ * каждая — в своей транзакции; применённые версии записываются в таблицу {@value #HISTORY_TABLE}.
+ * Одновременный запуск нескольких серверов упорядочивается рекомендательной блокировкой PostgreSQL.
+ */
+public final class SchemaMigrator {
+    private static final Logger logger = LogManager.getLogger(SchemaMigrator.class);
+    private static final String MIGRATION_PATH = "/db/migration/";
+    private static final String HISTORY_TABLE = "schema_migrations";
+    private static final long MIGRATION_LOCK = 0x42534d4947524154L;
+
+    /**
+     * Миграции в порядке применения. Имя файла начинается с номера версии: {@code V<версия>__<описание>.sql}.
+     */
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__native_tables.sql",
+            "V2__performance_indexes.sql",
+            "V3__row_versions.sql",
+            "V4__unique_names.sql"
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Применяет миграции, ещё не применённые к базе данных.
+     *
+     * @param sessionFactory фабрика сессий основного сервера базы данных
+     * @throws IllegalStateException         если миграцию не удалось прочитать
+     * @throws org.hibernate.HibernateException если миграцию не удалось применить
+     */
+    public static void migrate(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            session.doWork(SchemaMigrator::migrate);
+        }
+    }
+
+    private static void migrate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + MIGRATION_LOCK + ")");
+            try {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+                        + "version INTEGER PRIMARY KEY, "
+                        + "name VARCHAR(200) NOT NULL, "
+                        + "applied_at TIMESTAMP NOT NULL DEFAULT now())");
+                Set<Integer> applied = appliedVersions(statement);
+                int pending = 0;
+                for (String migration : MIGRATIONS) {
+                    int version = versionOf(migration);
+                    if (!applied.contains(version)) {
+                        apply(connection, version, migration);
+                        pending++;
+                    }
+                }
+                logger.info("Схема базы данных актуальна, применено миграций: {}", pending);
+            } finally {
+                statement.execute("SELECT pg_advisory_unlock(" + MIGRATION_LOCK + ")");
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Statement statement) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (ResultSet resultSet = statement.executeQuery("SELECT version FROM " + HISTORY_TABLE)) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Применяет миграцию и записывает её версию в одной транзакции.
+     *
+     * @param connection соединение с базой данных
+     * @param version    версия миграции
+     * @param migration  имя файла миграции
+     * @throws SQLException при ошибке выполнения миграции
+     */
+    private static void apply(Connection connection, int version, String migration) throws SQLException {
+        String sql = read(migration);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement history = connection.prepareStatement(
+                     "INSERT INTO " + HISTORY_TABLE + " (version, name) VALUES (?, ?)")) {
+            statement.execute(sql);
+            history.setInt(1, version);
+            history.setString(2, migration);
+            history.executeUpdate();
+            connection.commit();
+            logger.info("Применена миграция {}", migration);
+        } catch (SQLException e) {
+            connection.rollback();
+            logger.error("Ошибка применения миграции {}", migration, e);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static int versionOf(String migration) {
+        return Integer.parseInt(migration.substring(1, migration.indexOf("__")));
+    }
+
+    private static String read(String migration) {
+        try (InputStream input = SchemaMigrator.class.getResourceAsStream(MIGRATION_PATH + migration)) {
+            if (input == null) {
+                throw new IllegalStateException("Не найдена миграция " + migration);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать миграцию " + migration, e);
+        }
+    }
+}
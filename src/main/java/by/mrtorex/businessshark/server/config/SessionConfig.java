@@ -1,25 +1,58 @@
 package by.mrtorex.businessshark.server.config;
 
 import by.mrtorex.businessshark.server.model.entities.*;
+import by.mrtorex.businessshark.server.utils.CancellationToken;
+import by.mrtorex.businessshark.server.utils.Deadline;
 
 import lombok.Getter;
 
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.internal.util.config.ConfigurationHelper;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 /**
  * Класс конфигурации Hibernate для работы с базой данных.
  * Реализован как синглтон для обеспечения единственной точки доступа к SessionFactory.
+ * После создания фабрики к базе данных применяются миграции схемы (см. {@link SchemaMigrator}).
+ * Вместе с фабрикой создаётся пул потоков для асинхронных обращений к базе данных ({@value #ASYNC_THREADS}).
+ * Соединения одновременно занимают и эти потоки, и потоки обработки запросов, открывающие сессии синхронно,
+ * а встроенный пул соединений Hibernate при исчерпании не ждёт, а сразу завершается ошибкой. Поэтому пул
+ * соединений увеличивается до суммы обоих чисел потоков (см. {@link #reserveConnections(int)}),
+ * если в настройках задан меньший размер.
+ * <p>
+ * Если задан адрес реплики ({@value #REPLICA_URL}), для неё создаётся вторая фабрика без изменения схемы
+ * с соединениями только для чтения;
+ * запросы на чтение, которым это разрешено (см. {@link ReplicaRouting}), открывают сессии на реплике.
  */
 @Getter
 public class SessionConfig {
     private static final Logger logger = LogManager.getLogger(SessionConfig.class);
+    private static final int DEFAULT_POOL_SIZE = 20;
+    private static final String ASYNC_THREADS = "businessshark.db.async_threads";
+    private static final int DEFAULT_ASYNC_THREADS = 4;
+    private static final String REPLICA_URL = "hibernate.replica.connection.url";
+    private static final String REPLICA_USER = "hibernate.replica.connection.username";
+    private static final String REPLICA_PASSWORD = "hibernate.replica.connection.password";
+    private static final String REPLICA_READ_ONLY = AvailableSettings.CONNECTION_PREFIX + ".readOnly";
     private static volatile SessionConfig sessionConfig;
+    private static volatile int requestThreads;
     private final SessionFactory sessionFactory;
+    private final SessionFactory replicaSessionFactory;
+    private final ExecutorService databaseExecutor;
 
     /**
      * Приватный конструктор для инициализации SessionFactory.
@@ -29,20 +62,92 @@ public class SessionConfig {
     private SessionConfig() throws HibernateException {
         try {
             logger.info("Инициализация SessionFactory...");
-            sessionFactory = new Configuration()
-                    .addAnnotatedClass(User.class)
-                    .addAnnotatedClass(Person.class)
-                    .addAnnotatedClass(Role.class)
-                    .addAnnotatedClass(Company.class)
-                    .addAnnotatedClass(Stock.class)
-                    .buildSessionFactory();
+            Map<Object, Object> settings = new Configuration().getProperties();
+            int asyncThreads = ConfigurationHelper.getInt(ASYNC_THREADS, settings, DEFAULT_ASYNC_THREADS);
+            int configuredPoolSize = ConfigurationHelper.getInt(AvailableSettings.POOL_SIZE, settings, DEFAULT_POOL_SIZE);
+            int poolSize = Math.max(configuredPoolSize, requestThreads + asyncThreads);
+            if (poolSize > configuredPoolSize) {
+                logger.info("Размер пула соединений увеличен с {} до {}: потоков обработки запросов {}, потоков базы данных {}",
+                        configuredPoolSize, poolSize, requestThreads, asyncThreads);
+            }
+            sessionFactory = configuration(poolSize).buildSessionFactory();
             logger.info("SessionFactory успешно инициализирована");
+            SchemaMigrator.migrate(sessionFactory);
+
+            Map<String, Object> properties = sessionFactory.getProperties();
+            String replicaUrl = ConfigurationHelper.getString(REPLICA_URL, properties);
+            if (replicaUrl == null || replicaUrl.isBlank()) {
+                replicaSessionFactory = sessionFactory;
+                logger.info("Реплика базы данных не задана, чтение выполняется с основного сервера");
+            } else {
+                String user = ConfigurationHelper.getString(AvailableSettings.JAKARTA_JDBC_USER, properties);
+                String password = ConfigurationHelper.getString(AvailableSettings.JAKARTA_JDBC_PASSWORD, properties);
+                replicaSessionFactory = configuration(poolSize)
+                        .setProperty(AvailableSettings.JAKARTA_JDBC_URL, replicaUrl)
+                        .setProperty(AvailableSettings.JAKARTA_JDBC_USER,
+                                ConfigurationHelper.getString(REPLICA_USER, properties, user))
+                        .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD,
+                                ConfigurationHelper.getString(REPLICA_PASSWORD, properties, password))
+                        .setProperty(AvailableSettings.HBM2DDL_AUTO, "none")
+                        .setProperty(REPLICA_READ_ONLY, "true")
+                        .buildSessionFactory();
+                logger.info("SessionFactory реплики инициализирована: {}", replicaUrl);
+            }
+
+            AtomicInteger threadNumber = new AtomicInteger();
+            databaseExecutor = Executors.newFixedThreadPool(asyncThreads, task -> {
+                Thread thread = new Thread(task, "DB-Worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            logger.info("Пул потоков базы данных создан, потоков: {}, соединений: {}", asyncThreads, poolSize);
         } catch (HibernateException e) {
             logger.fatal("Ошибка при создании SessionFactory", e);
             throw new HibernateException("Не удалось создать SessionFactory", e);
         }
     }
 
+    /**
+     * Создаёт конфигурацию Hibernate с классами сущностей.
+     *
+     * @param poolSize размер пула соединений
+     * @return конфигурация Hibernate
+     */
+    private static Configuration configuration(int poolSize) {
+        return new Configuration()
+                .setProperty(AvailableSettings.POOL_SIZE, String.valueOf(poolSize))
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Person.class)
+                .addAnnotatedClass(Role.class)
+                .addAnnotatedClass(Company.class)
+                .addAnnotatedClass(Stock.class);
+    }
+
+    /**
+     * Открывает сессию для чтения: на реплике, если текущему запросу это разрешено,
+     * иначе на основном сервере. Загруженные сессией сущности только для чтения: Hibernate не хранит
+     * их копии для проверки изменений и не сбрасывает сессию перед запросами.
+     *
+     * @return новая сессия Hibernate
+     */
+    public Session openReadSession() {
+        Session session = (ReplicaRouting.isReplicaAllowed() ? replicaSessionFactory : sessionFactory).openSession();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        return session;
+    }
+
+    /**
+     * Задаёт число потоков обработки запросов, которые открывают сессии синхронно.
+     * Пул соединений резервирует для них соединения сверх потоков базы данных.
+     * Вызывается до первого обращения к {@link #getInstance()}.
+     *
+     * @param threads число потоков обработки запросов
+     */
+    public static void reserveConnections(int threads) {
+        requestThreads = threads;
+    }
+
     /**
      * Возвращает экземпляр SessionConfig (реализация синглтона с двойной проверкой блокировки).
      *
@@ -64,12 +169,39 @@ public class SessionConfig {
         return sessionConfig;
     }
 
+    /**
+     * Закрывает SessionFactory, если она была создана. Не инициирует подключение к БД.
+     */
+    public static void shutdownIfInitialized() {
+        SessionConfig instance = sessionConfig;
+        if (instance != null) {
+            instance.shutdown();
+        }
+    }
+
+    /**
+     * Выполняет действие с базой данных в пуле потоков базы данных.
+     * Крайний срок, признак отмены и разрешение чтения с реплики текущего запроса передаются в поток пула.
+     *
+     * @param action действие с базой данных
+     * @param <T>    тип результата
+     * @return будущий результат действия
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> action) {
+        return CompletableFuture.supplyAsync(
+                ReplicaRouting.propagate(CancellationToken.propagate(Deadline.propagate(action))), databaseExecutor);
+    }
+
     /**
      * Закрывает SessionFactory при завершении работы приложения.
      */
-    @SuppressWarnings("unused")
     public void shutdown() {
+        databaseExecutor.shutdown();
         try {
+            if (replicaSessionFactory != sessionFactory && !replicaSessionFactory.isClosed()) {
+                replicaSessionFactory.close();
+                logger.info("SessionFactory реплики закрыта");
+            }
             if (sessionFactory != null && !sessionFactory.isClosed()) {
                 logger.info("Закрытие SessionFactory...");
                 sessionFactory.close();
@@ -0,0 +1,79 @@
+package by.mrtorex.businessshark.server.controllers;
+
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.network.Request;
+import by.mrtorex.businessshark.server.network.Response;
+import by.mrtorex.businessshark.server.serializer.Deserializer;
+import by.mrtorex.businessshark.server.serializer.Serializer;
+import by.mrtorex.businessshark.server.services.CatalogService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.StringReader;
+
+/**
+ * Контроллер массового импорта каталога акций и компаний.
+ * CSV приходит в данных запроса целиком, поэтому его размер ограничен; каталог большего размера
+ * загружается утилитой {@link by.mrtorex.businessshark.server.network.ImportCatalog}, читающей файл потоком.
+ */
+public class CatalogController {
+    private static final Logger logger = LogManager.getLogger(CatalogController.class);
+    private final CatalogService catalogService;
+    private final int maxCsvLength;
+
+    /**
+     * Конструктор с внедрением зависимости сервиса.
+     *
+     * @param catalogService сервис импорта каталога
+     * @param maxCsvLength   наибольшая длина данных запроса импорта, символов
+     */
+    public CatalogController(CatalogService catalogService, int maxCsvLength) {
+        this.catalogService = catalogService;
+        this.maxCsvLength = maxCsvLength;
+        logger.info("Инициализирован CatalogController с внешним сервисом");
+    }
+
+    /**
+     * Конструктор со стандартным сервисом.
+     *
+     * @param maxCsvLength наибольшая длина данных запроса импорта, символов
+     */
+    public CatalogController(int maxCsvLength) {
+        this.catalogService = new CatalogService();
+        this.maxCsvLength = maxCsvLength;
+        logger.info("Инициализирован CatalogController со стандартным сервисом");
+    }
+
+    /**
+     * Импортирует каталог акций и компаний.
+     *
+     * @param request запрос с CSV каталога
+     * @return отчёт об импорте
+     */
+    public Response importCatalog(Request request) {
+        try {
+            if (request.getData() != null && request.getData().length() > maxCsvLength) {
+                logger.warn("Каталог отклонён: {} символов при ограничении {}", request.getData().length(), maxCsvLength);
+                return new Response(false, "Каталог больше " + maxCsvLength
+                        + " символов: загрузите его утилитой ImportCatalog", null);
+            }
+
+            Object extractedData = new Deserializer().extractData(request);
+
+            if (!(extractedData instanceof String csv) || csv.isBlank()) {
+                logger.warn("Некорректный формат CSV каталога");
+                return new Response(false, "Некорректные данные каталога", null);
+            }
+
+            CatalogService.ImportReport report = catalogService.importCatalog(new StringReader(csv));
+            return new Response(true, "Каталог импортирован", Serializer.toJson(report));
+        } catch (ResponseException e) {
+            logger.error("Ошибка импорта каталога: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
+        } catch (Exception e) {
+            logger.error("Ошибка импорта каталога", e);
+            return new Response(false, "Ошибка при импорте каталога: проверьте формат CSV", null);
+        }
+    }
+}
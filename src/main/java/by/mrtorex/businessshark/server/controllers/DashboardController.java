@@ -0,0 +1,74 @@
+package by.mrtorex.businessshark.server.controllers;
+
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.network.Request;
+import by.mrtorex.businessshark.server.network.Response;
+import by.mrtorex.businessshark.server.network.SessionRegistry;
+import by.mrtorex.businessshark.server.serializer.Deserializer;
+import by.mrtorex.businessshark.server.serializer.Serializer;
+import by.mrtorex.businessshark.server.services.DashboardService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Контроллер сводки портфеля пользователя для главного экрана.
+ */
+public class DashboardController {
+    private static final Logger logger = LogManager.getLogger(DashboardController.class);
+    private final DashboardService dashboardService;
+    private final SessionRegistry sessionRegistry;
+
+    /**
+     * Конструктор с внедрением зависимости сервиса.
+     *
+     * @param dashboardService сервис сводки портфеля
+     * @param sessionRegistry  таблица сессий пользователей
+     */
+    public DashboardController(DashboardService dashboardService, SessionRegistry sessionRegistry) {
+        this.dashboardService = dashboardService;
+        this.sessionRegistry = sessionRegistry;
+        logger.info("Инициализирован DashboardController с внешним сервисом");
+    }
+
+    /**
+     * Конструктор со стандартным сервисом.
+     *
+     * @param sessionRegistry таблица сессий пользователей
+     */
+    public DashboardController(SessionRegistry sessionRegistry) {
+        this.dashboardService = new DashboardService();
+        this.sessionRegistry = sessionRegistry;
+        logger.info("Инициализирован DashboardController со стандартным сервисом");
+    }
+
+    /**
+     * Получает сводку портфеля пользователя.
+     *
+     * @param request запрос с ID пользователя
+     * @return сводка портфеля
+     */
+    public Response getDashboard(Request request) {
+        try {
+            Object extractedData = new Deserializer().extractData(request);
+
+            if (!(extractedData instanceof Integer userId)) {
+                logger.warn("Некорректный формат ID пользователя");
+                return new Response(false, "Некорректный ID пользователя", null);
+            }
+
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
+            DashboardService.Dashboard dashboard = dashboardService.getDashboard(userId);
+            String json = Serializer.toJson(dashboard);
+            logger.info("Получена сводка для пользователя ID {}", userId);
+            return new Response(true, "Сводка портфеля получена", json);
+        } catch (ResponseException e) {
+            logger.error("Ошибка получения сводки: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
+        } catch (Exception e) {
+            logger.error("Ошибка получения сводки", e);
+            return new Response(false, "Ошибка при получении сводки портфеля", null);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import by.mrtorex.businessshark.server.exceptions.ResponseException;
 import by.mrtorex.businessshark.server.model.entities.Stock;
 import by.mrtorex.businessshark.server.network.Request;
 import by.mrtorex.businessshark.server.network.Response;
+import by.mrtorex.businessshark.server.network.SessionRegistry;
 import by.mrtorex.businessshark.server.serializer.Deserializer;
 import by.mrtorex.businessshark.server.serializer.Serializer;
 import by.mrtorex.businessshark.server.services.PortfolioService;
@@ -17,26 +18,33 @@ import java.util.List;
 /**
  * Контроллер для управления портфелями пользователей.
  * Обеспечивает операции с акциями пользователей и их счетами.
+ * Права вызывающего на портфель пользователя проверяются по токену сессии (см. {@link SessionRegistry#authorize}).
  */
 public class PortfolioController {
     private static final Logger logger = LogManager.getLogger(PortfolioController.class);
     private final PortfolioService portfolioService;
+    private final SessionRegistry sessionRegistry;
 
     /**
      * Конструктор с внедрением зависимости сервиса.
      *
      * @param portfolioService сервис для работы с портфелями
+     * @param sessionRegistry  таблица сессий пользователей
      */
-    public PortfolioController(PortfolioService portfolioService) {
+    public PortfolioController(PortfolioService portfolioService, SessionRegistry sessionRegistry) {
         this.portfolioService = portfolioService;
+        this.sessionRegistry = sessionRegistry;
         logger.info("Инициализирован PortfolioController с внешним сервисом");
     }
 
     /**
-     * Конструктор по умолчанию.
+     * Конструктор со стандартным сервисом.
+     *
+     * @param sessionRegistry таблица сессий пользователей
      */
-    public PortfolioController() {
+    public PortfolioController(SessionRegistry sessionRegistry) {
         this.portfolioService = new PortfolioService();
+        this.sessionRegistry = sessionRegistry;
         logger.info("Инициализирован PortfolioController со стандартным сервисом");
     }
 
@@ -59,6 +67,8 @@ public class PortfolioController {
                 return new Response(false, "Некорректный формат данных акции", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             portfolioService.saveEntity(new Pair<>(stock, amount), userId);
             logger.info("Добавлена акция ID {} для пользователя ID {}, количество: {}",
                     stock.getId(), userId, amount);
@@ -86,6 +96,8 @@ public class PortfolioController {
                 return new Response(false, "Некорректный формат запроса", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             Pair<Stock, Integer> result = portfolioService.findEntity(userId, stockId);
             String json = Serializer.toJson(result);
             logger.info("Получена акция ID {} для пользователя ID {}", stockId, userId);
@@ -115,6 +127,8 @@ public class PortfolioController {
                 return new Response(false, "Некорректный формат данных", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             portfolioService.updateEntity(new Pair<>(stock, amount), userId);
             logger.info("Обновлена акция ID {} для пользователя ID {}, новое количество: {}",
                     stock.getId(), userId, amount);
@@ -142,6 +156,8 @@ public class PortfolioController {
                 return new Response(false, "Некорректный формат запроса", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             portfolioService.deleteEntity(userId, stockId);
             logger.info("Удалена акция ID {} из портфеля пользователя ID {}", stockId, userId);
             return new Response(true, "Акция успешно удалена", null);
@@ -166,10 +182,15 @@ public class PortfolioController {
                 return new Response(false, "Некорректный ID пользователя", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             List<Pair<Stock, Integer>> stocks = portfolioService.findAllUserStocks(userId);
             String json = Serializer.toJson(stocks);
             logger.info("Получено {} акций для пользователя ID {}", stocks.size(), userId);
             return new Response(true, "Список акций получен", json);
+        } catch (ResponseException e) {
+            logger.error("Ошибка получения списка акций: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
         } catch (Exception e) {
             logger.error("Ошибка получения списка акций", e);
             return new Response(false, "Ошибка при получении списка акций", null);
@@ -201,11 +222,21 @@ public class PortfolioController {
      */
     public Response getAccount(Request request) {
         try {
-            Integer userId = (Integer) new Deserializer().extractData(request);
+            Object extractedData = new Deserializer().extractData(request);
+
+            if (!(extractedData instanceof Integer userId)) {
+                logger.warn("Некорректный формат ID пользователя");
+                return new Response(false, "Некорректный ID пользователя", null);
+            }
+
+            sessionRegistry.authorize(request.getSessionToken(), userId);
             Double account = portfolioService.getAccount(userId);
             String json = Serializer.toJson(account);
             logger.info("Получен баланс для пользователя ID {}: {}", userId, account);
             return new Response(true, "Баланс получен", json);
+        } catch (ResponseException e) {
+            logger.error("Ошибка получения баланса: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
         } catch (Exception e) {
             logger.error("Ошибка получения баланса", e);
             return new Response(false, "Ошибка при получении баланса", null);
@@ -229,6 +260,8 @@ public class PortfolioController {
                 return new Response(false, "Некорректный формат данных", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), userId);
+
             portfolioService.setAccount(userId, account);
             logger.info("Установлен баланс {} для пользователя ID {}", account, userId);
             return new Response(true, "Баланс успешно обновлен", null);
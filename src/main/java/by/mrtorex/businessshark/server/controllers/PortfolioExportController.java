@@ -0,0 +1,65 @@
+package by.mrtorex.businessshark.server.controllers;
+
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.network.Request;
+import by.mrtorex.businessshark.server.network.Response;
+import by.mrtorex.businessshark.server.serializer.Serializer;
+import by.mrtorex.businessshark.server.services.PortfolioExportService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+
+/**
+ * Контроллер массовой выгрузки портфелей и счетов пользователей.
+ * Ответ сервера передаётся клиенту целиком, поэтому выгрузка записывается в файл каталога выгрузок сервера,
+ * а клиент получает имя файла и отчёт о выгрузке.
+ */
+public class PortfolioExportController {
+    private static final Logger logger = LogManager.getLogger(PortfolioExportController.class);
+    private final PortfolioExportService portfolioExportService;
+    private final Path exportDirectory;
+
+    /**
+     * Конструктор с внедрением зависимости сервиса.
+     *
+     * @param portfolioExportService сервис выгрузки портфелей
+     * @param exportDirectory        каталог файлов выгрузки
+     */
+    public PortfolioExportController(PortfolioExportService portfolioExportService, Path exportDirectory) {
+        this.portfolioExportService = portfolioExportService;
+        this.exportDirectory = exportDirectory;
+        logger.info("Инициализирован PortfolioExportController с внешним сервисом");
+    }
+
+    /**
+     * Конструктор со стандартным сервисом.
+     *
+     * @param exportDirectory каталог файлов выгрузки
+     */
+    public PortfolioExportController(Path exportDirectory) {
+        this.portfolioExportService = new PortfolioExportService();
+        this.exportDirectory = exportDirectory;
+        logger.info("Инициализирован PortfolioExportController со стандартным сервисом");
+    }
+
+    /**
+     * Выгружает портфели и счета пользователей в новый файл.
+     *
+     * @param request запрос без данных
+     * @return отчёт о выгрузке с именем файла
+     */
+    public Response exportPortfolios(Request request) {
+        try {
+            PortfolioExportService.ExportReport report = portfolioExportService.exportToDirectory(exportDirectory);
+            return new Response(true, "Портфели выгружены", Serializer.toJson(report));
+        } catch (ResponseException e) {
+            logger.error("Ошибка выгрузки портфелей: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
+        } catch (Exception e) {
+            logger.error("Ошибка выгрузки портфелей", e);
+            return new Response(false, "Ошибка при выгрузке портфелей", null);
+        }
+    }
+}
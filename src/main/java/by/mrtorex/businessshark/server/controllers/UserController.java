@@ -4,6 +4,7 @@ import by.mrtorex.businessshark.server.exceptions.ResponseException;
 import by.mrtorex.businessshark.server.model.entities.User;
 import by.mrtorex.businessshark.server.network.Request;
 import by.mrtorex.businessshark.server.network.Response;
+import by.mrtorex.businessshark.server.network.SessionRegistry;
 import by.mrtorex.businessshark.server.serializer.Deserializer;
 import by.mrtorex.businessshark.server.serializer.Serializer;
 import by.mrtorex.businessshark.server.services.PersonService;
@@ -11,9 +12,14 @@ import by.mrtorex.businessshark.server.services.RoleService;
 import by.mrtorex.businessshark.server.services.UserService;
 import by.mrtorex.businessshark.server.utils.Pair;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -22,9 +28,11 @@ import java.util.Objects;
  */
 public class UserController {
     private static final Logger logger = LogManager.getLogger(UserController.class);
+    private static final String PASSWORD_HASH = "passwordHash";
     private final UserService userService;
     private final PersonService personService;
     private final RoleService roleService;
+    private final SessionRegistry sessionRegistry;
 
     /**
      * Конструктор с внедрением зависимостей сервисов.
@@ -32,26 +40,34 @@ public class UserController {
      * @param userService сервис работы с пользователями
      * @param personService сервис работы с персональными данными
      * @param roleService сервис работы с ролями
+     * @param sessionRegistry таблица сессий пользователей
      */
-    public UserController(UserService userService, PersonService personService, RoleService roleService) {
+    public UserController(UserService userService, PersonService personService, RoleService roleService,
+                          SessionRegistry sessionRegistry) {
         this.userService = userService;
         this.personService = personService;
         this.roleService = roleService;
+        this.sessionRegistry = sessionRegistry;
         logger.info("Инициализирован UserController с внешними сервисами");
     }
 
     /**
-     * Конструктор по умолчанию.
+     * Конструктор со стандартными сервисами.
+     *
+     * @param sessionRegistry таблица сессий пользователей
      */
-    public UserController() {
+    public UserController(SessionRegistry sessionRegistry) {
         this.userService = new UserService();
         this.personService = new PersonService();
         this.roleService = new RoleService();
+        this.sessionRegistry = sessionRegistry;
         logger.info("Инициализирован UserController со стандартными сервисами");
     }
 
     /**
-     * Выполняет аутентификацию пользователя.
+     * Выполняет аутентификацию пользователя и открывает сессию.
+     * Токен сессии возвращается в поле {@code sessionToken} данных пользователя; хеш пароля в ответ
+     * не включается (см. {@link #toPublicJson(Object)}).
      *
      * @param request запрос с данными для входа
      * @return ответ с результатом аутентификации
@@ -62,10 +78,11 @@ public class UserController {
             logger.info("Попытка входа пользователя: {}", user.getUsername());
 
             User existingUser = userService.login(user);
-            String loggedInUser = Serializer.toJson(existingUser);
+            JsonObject loggedInUser = toPublicJson(existingUser).getAsJsonObject();
+            loggedInUser.addProperty("sessionToken", sessionRegistry.open(existingUser));
 
             logger.info("Успешный вход пользователя: {}", user.getUsername());
-            return new Response(true, "Аутентификация успешна", loggedInUser);
+            return new Response(true, "Аутентификация успешна", loggedInUser.toString());
         } catch (ClassCastException e) {
             logger.error("Некорректный формат данных пользователя", e);
             return new Response(false, "Некорректные данные для входа", null);
@@ -94,8 +111,8 @@ public class UserController {
             }
 
             logger.info("Попытка регистрации пользователя: {}", user.getUsername());
-            User registeredUser = userService.register(user, personService, roleService);
-            String registeredUserJson = Serializer.toJson(registeredUser);
+            User registeredUser = userService.register(user, roleService);
+            String registeredUserJson = toPublicJson(registeredUser).toString();
 
             logger.info("Успешная регистрация пользователя: {}", user.getUsername());
             return new Response(true, "Регистрация успешна", registeredUserJson);
@@ -116,9 +133,9 @@ public class UserController {
     public Response getAllUsers() {
         try {
             logger.info("Запрос списка всех пользователей");
-            String usersJson = Serializer.toJson(userService.findAllEntities());
-            logger.info("Получено {} пользователей", userService.findAllEntities().size());
-            return new Response(true, "Список пользователей получен", usersJson);
+            List<User> users = userService.findAllEntities();
+            logger.info("Получено {} пользователей", users.size());
+            return new Response(true, "Список пользователей получен", toPublicJson(users).toString());
         } catch (Exception e) {
             logger.error("Ошибка получения списка пользователей", e);
             return new Response(false, "Ошибка при получении списка пользователей", null);
@@ -126,7 +143,7 @@ public class UserController {
     }
 
     /**
-     * Удаляет пользователя.
+     * Удаляет пользователя. Удалить можно себя, а администратор — любого пользователя.
      *
      * @param request запрос с логином пользователя
      * @return результат операции
@@ -142,7 +159,10 @@ public class UserController {
                 return new Response(false, "Пользователь не найден", null);
             }
 
+            sessionRegistry.authorize(request.getSessionToken(), foundUser.getId());
+
             personService.deleteEntity(foundUser.getPerson());
+            sessionRegistry.revokeUser(foundUser.getId());
             logger.info("Пользователь успешно удален: {}", login);
             return new Response(true, "Пользователь удален", null);
         } catch (ClassCastException e) {
@@ -156,6 +176,9 @@ public class UserController {
 
     /**
      * Обновляет данные пользователя.
+     * Инициатор определяется по токену сессии и должен быть самим пользователем или администратором;
+     * без токена (если сессия не обязательна) инициатор загружается из базы данных.
+     * Сессии обновлённого пользователя закрываются.
      *
      * @param request запрос с данными для обновления
      * @return результат операции
@@ -166,26 +189,35 @@ public class UserController {
 
             if (!(extractData instanceof Pair<?,?> pair) ||
                     !(pair.getKey() instanceof User userToUpdate) ||
-                    !(pair.getValue() instanceof User userThatOperate)) {
+                    !(pair.getValue() instanceof User userThatOperate) ||
+                    userToUpdate.getId() == null) {
                 logger.warn("Некорректный формат данных для обновления пользователя");
                 return new Response(false, "Некорректные данные пользователя", null);
             }
 
-            logger.info("Попытка обновления пользователя ID {} (инициатор: {})",
-                    userToUpdate.getId(), userThatOperate.getId());
+            Integer operatorId = userThatOperate.getId();
+            boolean operatorExists;
+            SessionRegistry.UserSession session = sessionRegistry.authorize(request.getSessionToken(),
+                    userToUpdate.getId());
+            if (session != null) {
+                operatorId = session.getUserId();
+                operatorExists = true;
+            } else {
+                operatorExists = userService.findEntity(operatorId) != null;
+            }
 
-            User existingUserToUpdate = userService.findEntity(userToUpdate.getId());
-            User existingUserThatOperate = userService.findEntity(userThatOperate.getId());
+            logger.info("Попытка обновления пользователя ID {} (инициатор: {})", userToUpdate.getId(), operatorId);
 
-            if (existingUserToUpdate == null || existingUserThatOperate == null) {
-                logger.warn("Один из пользователей не существует (обновляемый: {}, инициатор: {})",
-                        userToUpdate.getId(), userThatOperate.getId());
+            if (!operatorExists) {
+                logger.warn("Инициатор обновления не существует (обновляемый: {}, инициатор: {})",
+                        userToUpdate.getId(), operatorId);
                 return new Response(false, "Один из пользователей не существует", null);
             }
 
-            userService.updateEntity(userToUpdate, personService);
+            userService.updateUser(userToUpdate);
+            sessionRegistry.revokeUser(userToUpdate.getId());
 
-            if (Objects.equals(userToUpdate.getId(), userThatOperate.getId())) {
+            if (Objects.equals(userToUpdate.getId(), operatorId)) {
                 logger.info("Пользователь обновил свои данные: {}", userToUpdate.getId());
                 return new Response(true, "Данные пользователя обновлены. Требуется повторный вход.", null);
             } else {
@@ -215,7 +247,7 @@ public class UserController {
                 return new Response(false, "Пользователь не найден", null);
             }
 
-            String userJson = Serializer.toJson(user);
+            String userJson = toPublicJson(user).toString();
             logger.info("Данные пользователя получены: {}", username);
             return new Response(true, "Данные пользователя получены", userJson);
         } catch (ClassCastException e) {
@@ -226,4 +258,22 @@ public class UserController {
             return new Response(false, e.getMessage(), null);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Преобразует пользователя или список пользователей в JSON без хеша пароля.
+     * Клиент хеш не использует: вызывающий определяется по токену сессии, а обновление
+     * без хеша сохраняет прежний пароль.
+     *
+     * @param users пользователь или список пользователей
+     * @return JSON-представление без поля {@code passwordHash}
+     */
+    private static JsonElement toPublicJson(Object users) {
+        JsonElement json = JsonParser.parseString(Serializer.toJson(users));
+        if (json.isJsonArray()) {
+            json.getAsJsonArray().forEach(user -> user.getAsJsonObject().remove(PASSWORD_HASH));
+        } else if (json.isJsonObject()) {
+            json.getAsJsonObject().remove(PASSWORD_HASH);
+        }
+        return json;
+    }
+}
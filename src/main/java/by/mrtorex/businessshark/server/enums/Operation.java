@@ -49,10 +49,17 @@ public enum Operation {
     GET_USER_ACCOUNT("Получение баланса пользователя"),
     SET_USER_ACCOUNT("Установка баланса пользователя"),
     GET_STOCK_AVAILABLE_AMOUNT("Получение доступного количества акций"),
+    GET_DASHBOARD("Получение сводки портфеля пользователя"),
+
+    /* Массовые операции */
+    IMPORT_CATALOG("Импорт каталога акций и компаний"),
+    EXPORT_PORTFOLIOS("Выгрузка портфелей и счетов пользователей"),
 
     /* Системные операции */
     LOGIN("Аутентификация пользователя"),
     REGISTER("Регистрация пользователя"),
+    PING("Проверка активности соединения"),
+    CANCEL("Отмена выполняющегося запроса"),
     DISCONNECT("Отключение от сервера");
 
     private final String description;
@@ -64,29 +71,4 @@ public enum Operation {
     Operation(String description) {
         this.description = description;
     }
-
-    /**
-     * Проверяет, является ли операция операцией чтения.
-     * @return true если операция только читает данные
-     */
-    @SuppressWarnings("unused")
-    public boolean isReadOperation() {
-        return this.name().startsWith("GET_") ||
-                this.name().startsWith("READ_");
-    }
-
-    /**
-     * Проверяет, является ли операция операцией изменения.
-     * @return true если операция изменяет данные
-     */
-    @SuppressWarnings("unused")
-    public boolean isModifyOperation() {
-        return this.name().startsWith("CREATE_") ||
-                this.name().startsWith("UPDATE_") ||
-                this.name().startsWith("DELETE_") ||
-                this.name().startsWith("ADD_") ||
-                this.name().startsWith("JOIN_") ||
-                this.name().startsWith("SEPARATE_") ||
-                this.name().startsWith("SET_");
-    }
 }
\ No newline at end of file
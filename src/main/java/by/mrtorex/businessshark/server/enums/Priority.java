@@ -0,0 +1,25 @@
+package by.mrtorex.businessshark.server.enums;
+
+import lombok.Getter;
+
+/**
+ * Классы приоритета обработки запросов.
+ * Порядок объявления определяет очерёдность: чем меньше порядковый номер, тем раньше запрос попадает к обработчику.
+ */
+@Getter
+public enum Priority {
+    CRITICAL("Аутентификация и торговые операции"),
+    HIGH("Чтение данных счёта и портфеля"),
+    NORMAL("Прочие операции"),
+    BULK("Массовые выборки списков");
+
+    private final String description;
+
+    /**
+     * Конструктор перечисления.
+     * @param description Описание класса приоритета на русском языке
+     */
+    Priority(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,14 @@
+package by.mrtorex.businessshark.server.exceptions;
+
+/**
+ * Исключение, выбрасываемое при выполнении запроса, отменённого клиентом.
+ */
+public class RequestCancelledException extends ResponseException {
+
+    /**
+     * Создает исключение об отмене запроса.
+     */
+    public RequestCancelledException() {
+        super("Запрос отменён клиентом");
+    }
+}
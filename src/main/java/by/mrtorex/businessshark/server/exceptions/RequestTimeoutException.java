@@ -0,0 +1,14 @@
+package by.mrtorex.businessshark.server.exceptions;
+
+/**
+ * Исключение, выбрасываемое, когда истекло допустимое время выполнения запроса.
+ */
+public class RequestTimeoutException extends ResponseException {
+
+    /**
+     * Создает исключение об истечении времени выполнения запроса.
+     */
+    public RequestTimeoutException() {
+        super("Превышено допустимое время выполнения запроса");
+    }
+}
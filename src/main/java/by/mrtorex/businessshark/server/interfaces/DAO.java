@@ -1,5 +1,8 @@
 package by.mrtorex.businessshark.server.interfaces;
 
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.repositories.QueryDeadline;
+
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.SessionFactory;
@@ -8,9 +11,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Базовый интерфейс для DAO (Data Access Object) операций.
+ * Асинхронные варианты методов выполняются в пуле потоков базы данных (см. {@link SessionConfig#supplyAsync}).
  *
  * @param <T> тип сущности, с которой работает DAO
  */
@@ -53,6 +58,64 @@ public interface DAO<T> {
      */
     List<T> findAll();
 
+    /**
+     * Асинхронно сохраняет объект в базе данных.
+     *
+     * @param obj объект для сохранения
+     * @return завершение сохранения
+     */
+    default CompletableFuture<Void> saveAsync(T obj) {
+        return SessionConfig.getInstance().supplyAsync(() -> {
+            save(obj);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронно обновляет объект в базе данных.
+     *
+     * @param obj объект для обновления
+     * @return завершение обновления
+     */
+    default CompletableFuture<Void> updateAsync(T obj) {
+        return SessionConfig.getInstance().supplyAsync(() -> {
+            update(obj);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронно удаляет объект из базы данных.
+     *
+     * @param obj объект для удаления
+     * @return завершение удаления
+     */
+    default CompletableFuture<Void> deleteAsync(T obj) {
+        return SessionConfig.getInstance().supplyAsync(() -> {
+            delete(obj);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронно находит объект по идентификатору.
+     *
+     * @param id идентификатор объекта
+     * @return будущий найденный объект или null, если не найден
+     */
+    default CompletableFuture<T> findByIdAsync(int id) {
+        return SessionConfig.getInstance().supplyAsync(() -> findById(id));
+    }
+
+    /**
+     * Асинхронно получает все объекты данного типа из базы данных.
+     *
+     * @return будущий список всех объектов
+     */
+    default CompletableFuture<List<T>> findAllAsync() {
+        return SessionConfig.getInstance().supplyAsync(this::findAll);
+    }
+
     /**
      * Выполняет операцию в транзакции.
      *
@@ -64,22 +127,26 @@ public interface DAO<T> {
     default void executeTransaction(SessionFactory sessionFactory,
                                     TransactionConsumer<T> action,
                                     T obj) {
-        Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
-            transaction = session.beginTransaction();
-            logger.info("Начата транзакция для объекта");
+            Transaction transaction = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                logger.info("Начата транзакция для объекта");
 
-            action.accept(session, obj);
+                action.accept(session, obj);
 
-            transaction.commit();
-            logger.info("Транзакция успешно завершена");
+                transaction.commit();
+                logger.info("Транзакция успешно завершена");
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (transaction.isActive()) {
+                    logger.warn("Откат активной транзакции");
+                    transaction.rollback();
+                }
+                throw e;
+            }
         } catch (Exception e) {
             logger.error("Ошибка выполнения транзакции", e);
-
-            if (transaction != null && transaction.isActive()) {
-                logger.warn("Откат активной транзакции");
-                transaction.rollback();
-            }
             throw new RuntimeException("Ошибка выполнения транзакции: " + e.getMessage(), e);
         }
     }
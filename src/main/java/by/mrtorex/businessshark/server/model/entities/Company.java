@@ -42,6 +42,15 @@ public class Company {
     @Column(name = "name", nullable = false, length = 50)
     private String name;
 
+    /**
+     * Версия строки для оптимистической блокировки.
+     * Увеличивается при каждом обновлении; обновление с устаревшей версией отклоняется.
+     */
+    @Version
+    @Expose
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * Переопределённый метод сравнения объектов на равенство.
      * Учитывает возможную прокси-обёртку Hibernate.
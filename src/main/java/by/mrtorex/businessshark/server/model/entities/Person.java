@@ -58,6 +58,15 @@ public class Person {
     @Column(name = "last_name", nullable = false, length = 50)
     private String lastName;
 
+    /**
+     * Версия строки для оптимистической блокировки.
+     * Увеличивается при каждом обновлении; обновление с устаревшей версией отклоняется.
+     */
+    @Version
+    @Expose
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * Переопределённый метод сравнения объектов на равенство.
      * Учитывает возможную прокси-обёртку Hibernate.
@@ -58,6 +58,15 @@ public class Stock {
     @Column(name = "amount", nullable = false)
     private Integer amount;
 
+    /**
+     * Версия строки для оптимистической блокировки.
+     * Увеличивается при каждом обновлении; обновление с устаревшей версией отклоняется.
+     */
+    @Version
+    @Expose
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * Переопределённый метод сравнения объектов на равенство.
      * Учитывает возможную прокси-обёртку Hibernate для корректного сравнения.
@@ -62,12 +62,24 @@ public class User {
     /**
      * Связанные персональные данные пользователя.
      * Обязательное поле, уникально для каждого пользователя.
+     * Загружается лениво; запросы {@code UserDAO} подгружают его соединением.
+     * Не выводится в {@code toString}: пользователь записывается в журнал и после закрытия сессии.
      */
     @Expose
-    @OneToOne
+    @ToString.Exclude
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "person_id", nullable = false, unique = true)
     private Person person;
 
+    /**
+     * Версия строки для оптимистической блокировки.
+     * Увеличивается при каждом обновлении; обновление с устаревшей версией отклоняется.
+     */
+    @Version
+    @Expose
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * Переопределённый метод сравнения объектов на равенство.
      * Учитывает прокси-обёртку Hibernate для корректного сравнения.
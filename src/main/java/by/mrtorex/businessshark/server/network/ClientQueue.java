@@ -0,0 +1,155 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Priority;
+
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Очередь запросов одного клиентского подключения.
+ * Запросы без идентификатора выполняются строго по одному и в порядке поступления,
+ * поэтому ответы на них уходят клиенту в том же порядке, в котором пришли запросы.
+ * Запросы с идентификатором клиент сопоставляет с ответами сам, поэтому запрос более высокого
+ * приоритета обгоняет ожидающие и уже выполняющиеся запросы подключения с более низким:
+ * одновременно выполняется не более одного такого запроса каждого класса приоритета.
+ * Запрос без идентификатора не обгоняется и не обгоняет.
+ * Состояние очереди изменяется только под блокировкой {@link RequestScheduler}.
+ */
+public class ClientQueue {
+    private final String clientName;
+    final Consumer<Response> notifier;
+    final ArrayDeque<PendingRequest> pending = new ArrayDeque<>();
+    private final Set<Priority> inFlightClasses = EnumSet.noneOf(Priority.class);
+    private boolean orderedInFlight;
+    int inFlight;
+    boolean closed;
+    int deficit;
+    Priority ringPriority;
+
+    private long served;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * Создаёт очередь подключения.
+     *
+     * @param clientName имя клиента для журналирования и метрик
+     * @param notifier   получатель сообщений, отправляемых клиенту без запроса, или null
+     */
+    ClientQueue(String clientName, Consumer<Response> notifier) {
+        this.clientName = clientName;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Возвращает имя клиента.
+     *
+     * @return имя клиента
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Возвращает запрос, который можно передать обработчику следующим.
+     *
+     * @return запрос или null, если все ожидающие запросы должны дождаться выполняющихся
+     */
+    PendingRequest next() {
+        if (orderedInFlight) return null;
+        PendingRequest best = null;
+        for (PendingRequest request : pending) {
+            if (!request.correlated()) {
+                return best != null ? best : inFlight == 0 ? request : null;
+            }
+            if (!inFlightClasses.contains(request.priority())
+                    && (best == null || request.priority().compareTo(best.priority()) < 0)) {
+                best = request;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Извлекает следующий запрос из очереди и отмечает его выполняющимся.
+     *
+     * @return запрос, возвращённый {@link #next()}
+     */
+    PendingRequest take() {
+        PendingRequest request = next();
+        for (Iterator<PendingRequest> it = pending.iterator(); it.hasNext(); ) {
+            if (it.next() == request) {
+                it.remove();
+                break;
+            }
+        }
+        inFlight++;
+        if (request.correlated()) {
+            inFlightClasses.add(request.priority());
+        } else {
+            orderedInFlight = true;
+        }
+        return request;
+    }
+
+    /**
+     * Отмечает завершение выполнявшегося запроса.
+     *
+     * @param request запрос, полученный из {@link #take()}
+     */
+    void finish(PendingRequest request) {
+        inFlight--;
+        if (request.correlated()) {
+            inFlightClasses.remove(request.priority());
+        } else {
+            orderedInFlight = false;
+        }
+    }
+
+    /**
+     * Учитывает время ожидания запроса, переданного обработчику.
+     *
+     * @param waitNanos время ожидания в наносекундах
+     */
+    void recordWait(long waitNanos) {
+        served++;
+        totalWaitNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+    }
+
+    /**
+     * Формирует строку с метриками очереди: глубина, число обслуженных запросов,
+     * среднее и максимальное время ожидания.
+     *
+     * @return описание метрик очереди
+     */
+    String describeMetrics() {
+        long avgMillis = served == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / served);
+        return String.format("%s: в очереди %d, обслужено %d, ожидание ср. %d мс / макс. %d мс",
+                clientName, pending.size() + inFlight, served,
+                avgMillis, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    /**
+     * Запрос, ожидающий обработки.
+     *
+     * @param priority   класс приоритета запроса
+     * @param cost       стоимость обслуживания запроса
+     * @param correlated сопоставляет ли клиент ответ с запросом по идентификатору
+     * @param handler    обработчик, формирующий ответ
+     * @param responder  получатель готового ответа
+     * @param enqueuedAt момент постановки в очередь, нс
+     */
+    record PendingRequest(Priority priority,
+                          int cost,
+                          boolean correlated,
+                          Supplier<Response> handler,
+                          Consumer<Response> responder,
+                          long enqueuedAt) {
+    }
+}
@@ -1,8 +1,7 @@
 package by.mrtorex.businessshark.server.network;
 
-import by.mrtorex.businessshark.server.controllers.*;
 import by.mrtorex.businessshark.server.enums.Operation;
-import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.enums.Priority;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,72 +10,109 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.function.Consumer;
 
 /**
  * Поток обработки клиентских подключений.
- * Обрабатывает запросы от клиента и взаимодействует с контроллерами для выполнения операций.
+ * Читает запросы клиента и передаёт их на выполнение диспетчеру запросов через планировщик.
  */
 public class ClientThread implements Runnable {
     private static final Logger logger = LogManager.getLogger(ClientThread.class);
 
     private final Socket clientSocket;
-    private final StockController stockController;
-    private final UserController userController;
-    private final CompanyController companyController;
-    private final RoleController roleController;
-    private final PortfolioController portfolioController;
+    private final RequestScheduler requestScheduler;
+    private final IdleConnectionReaper idleConnectionReaper;
+    private final RateLimiter.ConnectionLimits rateLimits;
+    private final RequestDispatcher requestDispatcher;
+    private IdleConnectionReaper.Watch idleWatch;
+    private ObjectOutputStream output;
 
     /**
-     * Конструктор потока с инициализацией контроллеров.
+     * Конструктор потока обработки подключения.
      *
-     * @param socket сокет клиента
+     * @param socket           сокет клиента
+     * @param requestScheduler     планировщик, выполняющий запросы клиента
+     * @param idleConnectionReaper сборщик, закрывающий простаивающее соединение
+     * @param rateLimiter          ограничитель частоты запросов
+     * @param requestDispatcher    диспетчер, выполняющий запросы
      */
-    public ClientThread(Socket socket) {
+    public ClientThread(Socket socket, RequestScheduler requestScheduler,
+                        IdleConnectionReaper idleConnectionReaper, RateLimiter rateLimiter,
+                        RequestDispatcher requestDispatcher) {
         this.clientSocket = socket;
-        stockController = new StockController();
-        userController = new UserController();
-        companyController = new CompanyController();
-        roleController = new RoleController();
-        portfolioController = new PortfolioController();
+        this.requestScheduler = requestScheduler;
+        this.idleConnectionReaper = idleConnectionReaper;
+        this.rateLimits = rateLimiter.forConnection();
+        this.requestDispatcher = requestDispatcher;
         logger.info("Инициализирован новый клиентский поток для сокета {}", socket);
     }
 
     /**
-     * Основной цикл обработки запросов клиента.
-     * Принимает запросы, обрабатывает их и отправляет ответы.
+     * Основной цикл чтения запросов клиента.
+     * Принимает запросы и ставит их в очередь подключения в планировщике;
+     * ответы отправляются потоками-обработчиками в порядке поступления запросов.
+     * Ответ на запрос с идентификатором содержит этот идентификатор и может прийти раньше
+     * ответов на предыдущие запросы: запрос более высокого приоритета обгоняет их.
+     * Подтверждение отмены отправляется сразу, раньше ответа на отменяемый запрос.
      */
     @Override
     public void run() {
+        String clientName = String.valueOf(clientSocket.getRemoteSocketAddress());
+        ClientQueue clientQueue = requestScheduler.register(clientName, this::sendResponse);
+        idleWatch = idleConnectionReaper.watch(clientName, clientSocket);
         try (
                 ObjectInputStream input = new ObjectInputStream(clientSocket.getInputStream());
                 ObjectOutputStream output = new ObjectOutputStream(clientSocket.getOutputStream())
         ) {
+            this.output = output;
             boolean keepRunning = true;
 
             while (keepRunning) {
                 try {
                     Object obj = input.readObject();
+                    idleWatch.touch();
                     if (!(obj instanceof Request request)) {
                         logger.warn("Получен некорректный объект вместо запроса от клиента");
                         Response errorResponse = new Response(false, "Получен некорректный объект запроса", null);
-                        output.writeObject(errorResponse);
-                        output.flush();
+                        requestScheduler.submit(clientQueue, Priority.CRITICAL, 1, false, () -> errorResponse, this::sendResponse);
                         continue;
                     }
 
-                    Response response = processRequest(request);
+                    Long requestId = request.getRequestId();
+                    Consumer<Response> responder = response -> sendResponse(response.withRequestId(requestId));
+                    long retryAfter = rateLimits.tryAcquire(request);
+                    if (retryAfter > 0) {
+                        Response throttledResponse = RateLimiter.throttledResponse(retryAfter);
+                        requestScheduler.submit(clientQueue, Priority.CRITICAL, 1, requestId != null,
+                                () -> throttledResponse, responder);
+                        continue;
+                    }
+
+                    RequestDispatcher.AcceptedRequest accepted = requestDispatcher.accept(request, this);
+                    if (request.getOperation() == Operation.CANCEL) {
+                        // Отмена и её подтверждение идут вне очереди подключения: в ней они ждали бы
+                        // завершения отменяемого запроса
+                        responder.accept(requestDispatcher.dispatch(accepted));
+                        continue;
+                    }
+
+                    OperationHandler handler = OperationRegistry.get(request.getOperation());
+                    requestScheduler.submit(clientQueue, handler.priority(), handler.cost(), requestId != null,
+                            () -> requestDispatcher.dispatch(accepted), responder);
                     if (request.getOperation() == Operation.DISCONNECT) {
                         keepRunning = false;
+                        requestScheduler.awaitIdle(clientQueue);
                     }
-
-                    output.writeObject(response);
-                    output.flush();
                 } catch (IOException e) {
                     logger.error("Ошибка соединения с клиентом: {}", e.getMessage());
                     keepRunning = false;
                 } catch (ClassNotFoundException e) {
                     logger.error("Класс запроса не найден: {}", e.getMessage());
                     keepRunning = false;
+                } catch (InterruptedException e) {
+                    logger.warn("Чтение запросов клиента прервано, соединение закрывается");
+                    Thread.currentThread().interrupt();
+                    keepRunning = false;
                 } catch (Exception e) {
                     logger.error("Необработанная ошибка при обработке запроса", e);
                     keepRunning = false;
@@ -86,64 +122,37 @@ public class ClientThread implements Runnable {
             logger.error("Ошибка инициализации потоков ввода-вывода клиента", e);
             throw new RuntimeException("Ошибка инициализации клиентского потока", e);
         } finally {
+            requestDispatcher.cancelAll(this);
+            idleWatch.cancel();
+            requestScheduler.unregister(clientQueue);
             closeConnection();
         }
     }
 
     /**
-     * Обрабатывает запрос, вызывая соответствующие методы контроллеров.
+     * Отправляет ответ клиенту. Вызывается потоками-обработчиками планировщика.
      *
-     * @param request объект запроса от клиента
-     * @return ответ на запрос
+     * @param response ответ на запрос
      */
-    private Response processRequest(Request request) {
+    private synchronized void sendResponse(Response response) {
         try {
-            return switch (request.getOperation()) {
-                case CREATE_STOCK -> stockController.createStock(request);
-                case READ_STOCK_DATA -> stockController.getStockByTicker(request);
-                case UPDATE_STOCK -> stockController.updateStock(request);
-                case DELETE_STOCK -> stockController.deleteStock(request);
-
-                case CREATE_COMPANY -> companyController.createCompany(request);
-                case READ_COMPANY_DATA -> companyController.getCompanyByName(request);
-                case UPDATE_COMPANY -> companyController.updateCompany(request);
-                case DELETE_COMPANY -> companyController.deleteCompany(request);
-
-                case READ_USER -> userController.readEntity(request);
-                case DELETE_USER -> userController.deleteUser(request);
-                case UPDATE_USER -> userController.updateEntity(request);
-                case CREATE_USER, REGISTER -> userController.register(request);
-
-                case GET_ALL_COMPANIES -> companyController.getAllCompanies();
-                case GET_ALL_USERS -> userController.getAllUsers();
-                case GET_ALL_STOCKS -> stockController.getAllStocks();
-                case GET_ALL_ROLES -> roleController.getAllRoles();
-                case GET_ALL_STOCKS_WITH_NO_COMPANY -> stockController.getAllStocksWithNoCompany();
-
-                case GET_COMPANY_BY_STOCK -> companyController.getCompanyByStock(request);
-                case GET_STOCKS_BY_COMPANY -> companyController.getCompanyStocks(request);
-                case JOIN_STOCK_COMPANY -> companyController.addStockToCompany(request);
-                case SEPARATE_STOCK_COMPANY -> companyController.removeStockFromCompany(request);
-
-                case ADD_USER_STOCK -> portfolioController.addUserStock(request);
-                case GET_USER_STOCK -> portfolioController.getUserStock(request);
-                case UPDATE_USER_STOCK -> portfolioController.updateUserStock(request);
-                case DELETE_USER_STOCK -> portfolioController.deleteUserStock(request);
-                case GET_ALL_USER_STOCKS -> portfolioController.getAllUserStocks(request);
-                case GET_ALL_USER_STOCK_IDS -> portfolioController.getAllUserStockIds();
-                case GET_USER_ACCOUNT -> portfolioController.getAccount(request);
-                case SET_USER_ACCOUNT -> portfolioController.setAccount(request);
-                case GET_STOCK_AVAILABLE_AMOUNT -> portfolioController.getStockAvailableAmount(request);
+            output.writeObject(response);
+            output.flush();
+            idleWatch.touch();
+        } catch (IOException e) {
+            logger.error("Ошибка отправки ответа клиенту: {}", e.getMessage());
+        }
+    }
 
-                case LOGIN -> userController.login(request);
-                case DISCONNECT -> new Response(true, "Отключение выполнено успешно", null);
-            };
-        } catch (ResponseException e) {
-            logger.warn("Ошибка при выполнении операции: {}", e.getMessage());
-            return new Response(false, e.getMessage(), null);
-        } catch (Exception e) {
-            logger.error("Внутренняя ошибка сервера при обработке запроса", e);
-            return new Response(false, "Внутренняя ошибка сервера", null);
+    /**
+     * Принудительно закрывает сокет клиента, например при завершении работы сервера.
+     * Поток чтения запросов после этого завершается и освобождает ресурсы подключения.
+     */
+    public void disconnect() {
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            logger.error("Ошибка при принудительном закрытии клиентского соединения", e);
         }
     }
 
@@ -0,0 +1,144 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.controllers.*;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+
+/**
+ * Контроллеры сервера, общие для всех подключений.
+ * Контроллеры создаются при первом обращении к любому из них, поэтому запуск сервера
+ * и служебные операции не требуют доступной базы данных.
+ */
+public final class Controllers {
+    private static final Logger logger = LogManager.getLogger(Controllers.class);
+
+    private final SessionRegistry sessionRegistry;
+    private final Path exportDirectory;
+    private final int maxRequestSize;
+    private volatile Instances instances;
+
+    /**
+     * Создаёт набор контроллеров.
+     *
+     * @param sessionRegistry таблица сессий пользователей
+     * @param exportDirectory каталог файлов массовой выгрузки
+     * @param maxRequestSize  наибольший размер данных запроса импорта каталога
+     */
+    Controllers(SessionRegistry sessionRegistry, Path exportDirectory, int maxRequestSize) {
+        this.sessionRegistry = sessionRegistry;
+        this.exportDirectory = exportDirectory;
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Возвращает контроллер акций.
+     *
+     * @return контроллер
+     */
+    public StockController stocks() {
+        return instances().stockController();
+    }
+
+    /**
+     * Возвращает контроллер пользователей.
+     *
+     * @return контроллер
+     */
+    public UserController users() {
+        return instances().userController();
+    }
+
+    /**
+     * Возвращает контроллер компаний.
+     *
+     * @return контроллер
+     */
+    public CompanyController companies() {
+        return instances().companyController();
+    }
+
+    /**
+     * Возвращает контроллер ролей.
+     *
+     * @return контроллер
+     */
+    public RoleController roles() {
+        return instances().roleController();
+    }
+
+    /**
+     * Возвращает контроллер портфелей пользователей.
+     *
+     * @return контроллер
+     */
+    public PortfolioController portfolio() {
+        return instances().portfolioController();
+    }
+
+    /**
+     * Возвращает контроллер сводки пользователя.
+     *
+     * @return контроллер
+     */
+    public DashboardController dashboard() {
+        return instances().dashboardController();
+    }
+
+    /**
+     * Возвращает контроллер импорта каталога.
+     *
+     * @return контроллер
+     */
+    public CatalogController catalog() {
+        return instances().catalogController();
+    }
+
+    /**
+     * Возвращает контроллер выгрузки портфелей.
+     *
+     * @return контроллер
+     */
+    public PortfolioExportController portfolioExport() {
+        return instances().portfolioExportController();
+    }
+
+    /**
+     * Возвращает таблицу сессий пользователей.
+     *
+     * @return таблица сессий
+     */
+    public SessionRegistry sessions() {
+        return sessionRegistry;
+    }
+
+    private Instances instances() {
+        Instances current = instances;
+        if (current == null) {
+            synchronized (this) {
+                current = instances;
+                if (current == null) {
+                    current = new Instances(new StockController(), new UserController(sessionRegistry),
+                            new CompanyController(), new RoleController(), new PortfolioController(sessionRegistry),
+                            new DashboardController(sessionRegistry), new CatalogController(maxRequestSize),
+                            new PortfolioExportController(exportDirectory));
+                    instances = current;
+                    logger.info("Контроллеры сервера инициализированы");
+                }
+            }
+        }
+        return current;
+    }
+
+    private record Instances(StockController stockController,
+                             UserController userController,
+                             CompanyController companyController,
+                             RoleController roleController,
+                             PortfolioController portfolioController,
+                             DashboardController dashboardController,
+                             CatalogController catalogController,
+                             PortfolioExportController portfolioExportController) {
+    }
+}
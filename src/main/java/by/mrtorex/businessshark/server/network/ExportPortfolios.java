@@ -0,0 +1,61 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.services.PortfolioExportService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Выгрузка портфелей и счетов пользователей в CSV без запуска сервера, например для регуляторной отчётности.
+ * Строки записываются по мере получения из базы данных, поэтому объём памяти не зависит от числа строк.
+ * <p>
+ * Использование: {@code ExportPortfolios <файл.csv>}; формат выгрузки описан в
+ * {@link by.mrtorex.businessshark.server.repositories.PortfolioExportDAO}.
+ */
+public class ExportPortfolios {
+    private static final Logger logger = LogManager.getLogger(ExportPortfolios.class);
+
+    /**
+     * Точка входа выгрузки портфелей.
+     *
+     * @param args путь к файлу выгрузки
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            logger.error("Использование: ExportPortfolios <файл.csv>");
+            System.exit(2);
+        }
+
+        SessionConfig database;
+        try {
+            database = SessionConfig.getInstance();
+        } catch (RuntimeException e) {
+            logger.fatal("Не удалось подключиться к базе данных", e);
+            System.exit(1);
+            return;
+        }
+
+        int status = 0;
+        try (Writer out = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            PortfolioExportService.ExportReport report = new PortfolioExportService().export(out, args[0]);
+            logger.info("Выгрузка завершена: {}", report);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Не удалось записать выгрузку в {}: {}", args[0], e.getMessage());
+            status = 1;
+        } catch (RuntimeException e) {
+            logger.error("Выгрузка в {} не выполнена", args[0], e);
+            status = 1;
+        } finally {
+            database.shutdown();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,424 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Operation;
+import by.mrtorex.businessshark.server.exceptions.RequestTimeoutException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP-шлюз к операциям сервера.
+ * Операция задаётся путём {@code /api/<ОПЕРАЦИЯ>}, данные операции передаются телом POST-запроса
+ * или параметром {@code data} GET-запроса (только для операций чтения), токен сессии — заголовком
+ * {@code Authorization: Bearer <токен>}, время ожидания ответа в миллисекундах — заголовком
+ * {@code X-Request-Timeout}, идентификатор запроса для его отмены операцией CANCEL — заголовком
+ * {@code X-Request-Id}. Идентификаторы уникальны в пределах сессии, поэтому отменить можно только запрос
+ * с токеном сессии.
+ * <p>
+ * Запросы выполняются тем же диспетчером и планировщиком, что и запросы по основному протоколу: каждая
+ * действующая сессия получает собственную очередь в {@link RequestScheduler} и собственные лимиты
+ * {@link RateLimiter}, как отдельное подключение, поэтому на HTTP действуют те же приоритеты, справедливое
+ * разделение, ограничение глубины очереди и лимиты частоты, включая лимит входа по имени пользователя.
+ * Клиенты за одним NAT или обратным прокси не делят очередь. Запрос без действующей сессии выполняется
+ * в собственной очереди, а лимиты частоты таких запросов общие для адреса клиента: другого признака
+ * клиента у них нет, а неизвестный токен не выделяет отдельных лимитов.
+ * Исчерпание лимита возвращается кодом 429 с заголовком {@code Retry-After}, истечение времени выполнения —
+ * кодом 504, внутренняя ошибка — кодом 500, остановка сервера — кодом 503, прочие ошибки запроса — кодом 400.
+ * <p>
+ * Ответы имеют фиксированную длину, поэтому соединения сохраняются между запросами. Большие ответы
+ * сжимаются gzip, если клиент это допускает. Ответы на кэшируемые операции помечаются ETag
+ * по версии таблиц; при совпадении {@code If-None-Match} возвращается 304 без обращения к базе данных.
+ */
+public class HttpGateway {
+    private static final Logger logger = LogManager.getLogger(HttpGateway.class);
+    private static final String API_PREFIX = "/api/";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TIMEOUT_HEADER = "X-Request-Timeout";
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final int GZIP_THRESHOLD = 1024;
+    private static final long RESPONSE_GRACE_MILLIS = 1000;
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final RequestDispatcher requestDispatcher;
+    private final RequestScheduler requestScheduler;
+    private final RateLimiter rateLimiter;
+    private final SessionRegistry sessionRegistry;
+    private final int maxRequestSize;
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Создаёт и запускает HTTP-шлюз.
+     *
+     * @param port              порт шлюза
+     * @param backlog           длина очереди ожидающих подключений
+     * @param requestDispatcher диспетчер, выполняющий запросы
+     * @param requestScheduler  планировщик, в очередь которого ставятся запросы
+     * @param rateLimiter       ограничитель частоты запросов
+     * @param sessionRegistry   таблица сессий, по которым разделяются очереди клиентов
+     * @param maxRequestSize    наибольший размер тела запроса, байт
+     * @throws IOException если не удалось открыть порт
+     */
+    public HttpGateway(int port, int backlog, RequestDispatcher requestDispatcher, RequestScheduler requestScheduler,
+                       RateLimiter rateLimiter, SessionRegistry sessionRegistry, int maxRequestSize) throws IOException {
+        this.requestDispatcher = requestDispatcher;
+        this.requestScheduler = requestScheduler;
+        this.rateLimiter = rateLimiter;
+        this.sessionRegistry = sessionRegistry;
+        this.maxRequestSize = maxRequestSize;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), backlog);
+        httpServer.createContext(API_PREFIX, this::handle);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        logger.info("HTTP-шлюз запущен на порте {}", port);
+    }
+
+    /**
+     * Останавливает приём запросов и ожидает завершения выполняющихся.
+     *
+     * @param timeoutMillis наибольшее время ожидания, мс
+     */
+    public void stop(long timeoutMillis) {
+        httpServer.stop((int) Math.ceil(timeoutMillis / 1000.0));
+        executor.shutdown();
+        logger.info("HTTP-шлюз остановлен");
+    }
+
+    /**
+     * Снимает с обслуживания очереди клиентов, у которых нет выполняющихся запросов
+     * и лимиты которых полностью восстановились.
+     */
+    public void evictIdleClients() {
+        for (String clientKey : clients.keySet()) {
+            clients.computeIfPresent(clientKey, (key, client) -> {
+                if (client.active > 0 || !client.limits.isIdle()) return client;
+                if (client.queue != null) {
+                    requestScheduler.unregister(client.queue);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP-запрос.
+     *
+     * @param exchange обмен HTTP
+     */
+    private void handle(HttpExchange exchange) {
+        try {
+            String method = exchange.getRequestMethod();
+            Operation operation = parseOperation(exchange.getRequestURI().getPath());
+            if (operation == null) {
+                sendJson(exchange, 404, errorBody("Неизвестная операция"));
+                return;
+            }
+            OperationHandler handler = OperationRegistry.get(operation);
+            boolean getAllowed = handler.isRead() || operation == Operation.PING;
+            boolean isGet = "GET".equals(method);
+            if (!(isGet && getAllowed) && !"POST".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", getAllowed ? "GET, POST" : "POST");
+                sendJson(exchange, 405, errorBody("Метод не поддерживается для операции " + operation));
+                return;
+            }
+
+            String etag = null;
+            if (handler.isCacheable()) {
+                etag = "\"" + operation.name() + "-" + handler.dataVersion() + "\"";
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+
+            String data = isGet ? queryParameter(exchange, "data") : readBody(exchange.getRequestBody(), maxRequestSize);
+            if (data == null && !isGet) {
+                sendJson(exchange, 413, errorBody("Тело запроса больше " + maxRequestSize + " байт"));
+                return;
+            }
+            Request request = new Request(operation, data == null || data.isEmpty() ? null : data,
+                    sessionToken(exchange.getRequestHeaders()), longHeader(exchange.getRequestHeaders(), TIMEOUT_HEADER),
+                    longHeader(exchange.getRequestHeaders(), REQUEST_ID_HEADER));
+            SessionRegistry.UserSession session = sessionRegistry.resolve(request.getSessionToken());
+            boolean hasSession = session != null;
+            String address = exchange.getRemoteAddress().getAddress().getHostAddress();
+            // Токен не попадает в имя очереди: имя пишется в журнал
+            String clientName = hasSession ? "HTTP " + session.getUsername() + "@" + address : "HTTP " + address;
+            String clientKey = hasSession ? "session " + request.getSessionToken() : "address " + address;
+            HttpClient client = clients.compute(clientKey, (key, current) -> {
+                HttpClient acquired = current != null ? current : new HttpClient(
+                        hasSession ? requestScheduler.register(clientName) : null, rateLimiter.forConnection());
+                acquired.active++;
+                return acquired;
+            });
+            ClientQueue queue = hasSession ? client.queue : requestScheduler.register(clientName);
+            try {
+                respond(exchange, handler, request, client.limits, queue, etag != null);
+            } finally {
+                if (!hasSession) {
+                    requestScheduler.unregister(queue);
+                }
+                clients.computeIfPresent(clientKey, (key, current) -> {
+                    current.active--;
+                    return current;
+                });
+            }
+        } catch (IOException e) {
+            logger.warn("Ошибка обмена с HTTP-клиентом: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Внутренняя ошибка HTTP-шлюза", e);
+            try {
+                sendJson(exchange, 500, errorBody("Внутренняя ошибка сервера"));
+            } catch (IOException ignored) {
+                // Заголовки ответа уже отправлены
+            }
+        } finally {
+            // Обмен закрывается после ответа об ошибке: закрытый обмен не принимает ответ
+            exchange.close();
+        }
+    }
+
+    /**
+     * Проверяет лимиты клиента, выполняет запрос через планировщик и отправляет ответ с кодом,
+     * соответствующим результату.
+     *
+     * @param exchange  обмен HTTP
+     * @param handler   обработчик операции
+     * @param request   запрос
+     * @param limits    лимиты частоты клиента
+     * @param queue     очередь клиента в планировщике
+     * @param cacheable помечен ли ответ ETag
+     * @throws IOException при ошибке записи
+     */
+    private void respond(HttpExchange exchange, OperationHandler handler, Request request,
+                         RateLimiter.ConnectionLimits limits, ClientQueue queue, boolean cacheable) throws IOException {
+        long retryAfter = limits.tryAcquire(request);
+        if (retryAfter > 0) {
+            exchange.getResponseHeaders().remove("ETag");
+            exchange.getResponseHeaders().set("Retry-After",
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(retryAfter + 999)));
+            sendJson(exchange, 429, toJson(RateLimiter.throttledResponse(retryAfter)));
+            return;
+        }
+
+        RequestDispatcher.AcceptedRequest accepted = requestDispatcher.accept(request, request.getSessionToken());
+        Response response;
+        if (request.getOperation() == Operation.CANCEL) {
+            // Отмена выполняется сразу: в очереди клиента она ждала бы завершения отменяемого запроса
+            response = requestDispatcher.dispatch(accepted);
+        } else {
+            response = schedule(handler, accepted, queue);
+        }
+
+        int status;
+        if (response == null) {
+            response = new Response(false, "Сервер останавливается, повторите запрос позже", null);
+            status = 503;
+        } else if (response.isSuccess()) {
+            status = 200;
+        } else if (System.nanoTime() - accepted.deadlineNanos() >= 0) {
+            status = 504;
+        } else if (RequestDispatcher.isInternalError(response)) {
+            status = 500;
+        } else {
+            status = 400;
+        }
+        if (status != 200 && cacheable) {
+            exchange.getResponseHeaders().remove("ETag");
+        }
+        sendJson(exchange, status, toJson(response));
+    }
+
+    /**
+     * Ставит запрос в очередь клиента и ожидает ответ не дольше крайнего срока запроса.
+     *
+     * @param handler  обработчик операции
+     * @param accepted принятый запрос
+     * @param queue    очередь клиента
+     * @return ответ или null, если планировщик не принял запрос
+     */
+    private Response schedule(OperationHandler handler, RequestDispatcher.AcceptedRequest accepted, ClientQueue queue) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        try {
+            // Ответ приходит в собственный обмен, поэтому запрос может обгонять менее приоритетные запросы сессии
+            if (!requestScheduler.submit(queue, handler.priority(), handler.cost(), true,
+                    () -> requestDispatcher.dispatch(accepted), result::complete)) {
+                return null;
+            }
+            long waitNanos = accepted.deadlineNanos() - System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(RESPONSE_GRACE_MILLIS);
+            return result.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            accepted.cancellation().cancel();
+            logger.warn("Истекло время ожидания ответа на HTTP-запрос {}", accepted.request().getOperation());
+            return new Response(false, new RequestTimeoutException().getMessage(), null);
+        } catch (InterruptedException e) {
+            accepted.cancellation().cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("Ошибка выполнения HTTP-запроса", e.getCause());
+            return new Response(false, "Внутренняя ошибка сервера", null);
+        }
+    }
+
+    /**
+     * Отправляет JSON-ответ, сжимая его, если клиент допускает gzip.
+     *
+     * @param exchange обмен HTTP
+     * @param status   код ответа
+     * @param json     тело ответа
+     * @throws IOException при ошибке записи
+     */
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        headers.set("Vary", "Accept-Encoding");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length >= GZIP_THRESHOLD && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            headers.set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Operation parseOperation(String path) {
+        if (!path.startsWith(API_PREFIX)) return null;
+        try {
+            return Operation.valueOf(path.substring(API_PREFIX.length()).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) return true;
+        }
+        return false;
+    }
+
+    private static String sessionToken(Headers headers) {
+        String authorization = headers.getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) return null;
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    private static Long longHeader(Headers headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) return null;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            if (name.equals(URLDecoder.decode(key, StandardCharsets.UTF_8))) {
+                return separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Читает тело запроса, не больше заданного размера.
+     *
+     * @param body  тело запроса
+     * @param limit наибольший размер тела, байт
+     * @return тело запроса или null, если оно больше ограничения
+     * @throws IOException при ошибке чтения
+     */
+    private static String readBody(InputStream body, int limit) throws IOException {
+        byte[] bytes = body.readNBytes(limit + 1);
+        return bytes.length > limit ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Преобразует ответ сервера в JSON, встраивая данные ответа как JSON-значение.
+     *
+     * @param response ответ сервера
+     * @return JSON-представление ответа
+     */
+    private static String toJson(Response response) {
+        JsonObject json = new JsonObject();
+        json.addProperty("success", response.isSuccess());
+        json.addProperty("message", response.getMessage());
+        if (response.getData() != null) {
+            JsonElement data;
+            try {
+                data = JsonParser.parseString(response.getData());
+            } catch (JsonParseException e) {
+                data = new JsonPrimitive(response.getData());
+            }
+            json.add("data", data);
+        }
+        return json.toString();
+    }
+
+    private static String errorBody(String message) {
+        return toJson(new Response(false, message, null));
+    }
+
+    /**
+     * Очередь и лимиты одной сессии HTTP-клиента или лимиты одного адреса для запросов без сессии
+     * (очередь таких запросов создаётся на время запроса, поэтому здесь не хранится).
+     * Счётчик выполняющихся запросов изменяется только внутри вычислений над таблицей клиентов,
+     * поэтому очередь не снимается с обслуживания, пока ею пользуется запрос.
+     */
+    private static final class HttpClient {
+        private final ClientQueue queue;
+        private final RateLimiter.ConnectionLimits limits;
+        private int active;
+
+        private HttpClient(ClientQueue queue, RateLimiter.ConnectionLimits limits) {
+            this.queue = queue;
+            this.limits = limits;
+        }
+    }
+}
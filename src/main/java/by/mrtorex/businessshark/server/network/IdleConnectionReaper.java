@@ -0,0 +1,118 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.utils.TimingWheel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборщик простаивающих подключений.
+ * Для каждого подключения хранится время последней активности; проверка планируется
+ * на колесе таймеров на момент истечения тайм-аута и, если подключение за это время было активно,
+ * переносится на оставшийся интервал. Отметка активности — одна запись в volatile-поле.
+ */
+public class IdleConnectionReaper {
+    private static final Logger logger = LogManager.getLogger(IdleConnectionReaper.class);
+
+    private final TimingWheel wheel;
+    private final long idleTimeoutNanos;
+
+    /**
+     * Создаёт сборщик простаивающих подключений.
+     *
+     * @param idleTimeoutMillis время простоя, после которого подключение закрывается, мс
+     * @param tickMillis        длительность тика колеса таймеров, мс
+     * @param wheelSize         количество ячеек колеса таймеров
+     */
+    public IdleConnectionReaper(long idleTimeoutMillis, long tickMillis, int wheelSize) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Тайм-аут простоя должен быть положительным");
+        }
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.wheel = new TimingWheel(tickMillis, TimeUnit.MILLISECONDS, wheelSize, "Idle-Reaper");
+        logger.info("Сборщик простаивающих подключений запущен: тайм-аут {} мс, тик {} мс",
+                idleTimeoutMillis, tickMillis);
+    }
+
+    /**
+     * Начинает отслеживание активности подключения.
+     *
+     * @param clientName имя клиента для журналирования
+     * @param connection ресурс, закрываемый по истечении тайм-аута простоя
+     * @return дескриптор отслеживания
+     */
+    public Watch watch(String clientName, Closeable connection) {
+        Watch watch = new Watch(clientName, connection);
+        watch.schedule(idleTimeoutNanos);
+        return watch;
+    }
+
+    /**
+     * Останавливает колесо таймеров.
+     */
+    public void stop() {
+        wheel.stop();
+        logger.info("Сборщик простаивающих подключений остановлен");
+    }
+
+    /**
+     * Дескриптор отслеживания активности одного подключения.
+     */
+    public final class Watch {
+        private final String clientName;
+        private final Closeable connection;
+        private volatile long lastActivity = System.nanoTime();
+        private volatile TimingWheel.Timeout timeout;
+        private volatile boolean cancelled;
+
+        private Watch(String clientName, Closeable connection) {
+            this.clientName = clientName;
+            this.connection = connection;
+        }
+
+        /**
+         * Отмечает активность подключения.
+         */
+        public void touch() {
+            lastActivity = System.nanoTime();
+        }
+
+        /**
+         * Прекращает отслеживание подключения.
+         */
+        public void cancel() {
+            cancelled = true;
+            TimingWheel.Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        private void schedule(long delayNanos) {
+            timeout = wheel.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Проверяет простой подключения: закрывает его или переносит проверку на оставшийся интервал.
+         */
+        private void check() {
+            if (cancelled) return;
+            long idle = System.nanoTime() - lastActivity;
+            if (idle < idleTimeoutNanos) {
+                schedule(idleTimeoutNanos - idle);
+                return;
+            }
+            logger.warn("Клиент {} простаивал {} мс, соединение закрывается",
+                    clientName, TimeUnit.NANOSECONDS.toMillis(idle));
+            try {
+                connection.close();
+            } catch (IOException e) {
+                logger.error("Ошибка при закрытии простаивающего соединения {}", clientName, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.services.CatalogService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Импорт каталога акций и компаний из CSV-файла без запуска сервера, например для ночной загрузки
+ * справочных данных. Файл передаётся потоком, поэтому его размер не ограничен памятью.
+ * <p>
+ * Использование: {@code ImportCatalog <файл.csv>}; формат файла описан в {@link CatalogService#importCatalog}.
+ */
+public class ImportCatalog {
+    private static final Logger logger = LogManager.getLogger(ImportCatalog.class);
+
+    /**
+     * Точка входа импорта каталога.
+     *
+     * @param args путь к CSV-файлу каталога
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            logger.error("Использование: ImportCatalog <файл.csv>");
+            System.exit(2);
+        }
+
+        SessionConfig database;
+        try {
+            database = SessionConfig.getInstance();
+        } catch (RuntimeException e) {
+            logger.fatal("Не удалось подключиться к базе данных", e);
+            System.exit(1);
+            return;
+        }
+
+        int status = 0;
+        try (Reader csv = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            CatalogService.ImportReport report = new CatalogService().importCatalog(csv);
+            logger.info("Импорт файла {} завершён: {}", args[0], report);
+        } catch (IOException e) {
+            logger.error("Не удалось прочитать файл каталога {}: {}", args[0], e.getMessage());
+            status = 1;
+        } catch (RuntimeException e) {
+            logger.error("Импорт файла {} не выполнен", args[0], e);
+            status = 1;
+        } finally {
+            database.shutdown();
+        }
+        System.exit(status);
+    }
+}
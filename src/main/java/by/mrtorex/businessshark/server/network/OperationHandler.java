@@ -0,0 +1,187 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Priority;
+import by.mrtorex.businessshark.server.repositories.TableVersion;
+
+import java.lang.reflect.Type;
+
+/**
+ * Обработчик операции вместе с её свойствами.
+ * Свойства задаются один раз при регистрации в {@link OperationRegistry} и используются
+ * десериализатором, планировщиком, кэшем ответов и сбором метрик.
+ *
+ * @param payloadType   тип данных запроса или null, если операция не принимает данных
+ * @param access        класс доступа операции к данным
+ * @param priority      класс приоритета в планировщике
+ * @param cost          стоимость обслуживания в единицах дефицита справедливого планировщика
+ * @param timeoutMillis допустимое время выполнения, мс
+ * @param dependsOn     таблицы, из которых строится ответ; непустой набор делает ответ кэшируемым
+ * @param callerScoped  относятся ли данные операции к конкретному пользователю, права на которые
+ *                      проверяются по сессии вызывающего
+ * @param adminOnly     доступна ли операция только по сессии администратора
+ * @param action        действие, выполняющее операцию
+ */
+public record OperationHandler(Type payloadType,
+                               Access access,
+                               Priority priority,
+                               int cost,
+                               long timeoutMillis,
+                               TableVersion[] dependsOn,
+                               boolean callerScoped,
+                               boolean adminOnly,
+                               Action action) {
+    private static final long READ_TIMEOUT = 5000;
+    private static final long WRITE_TIMEOUT = 10000;
+    private static final TableVersion[] NO_TABLES = {};
+
+    /**
+     * Создаёт обработчик операции чтения.
+     *
+     * @param payloadType тип данных запроса или null
+     * @param priority    класс приоритета
+     * @param action      действие
+     * @return обработчик
+     */
+    public static OperationHandler read(Type payloadType, Priority priority, Action action) {
+        return new OperationHandler(payloadType, Access.READ, priority, 1, READ_TIMEOUT,
+                NO_TABLES, false, false, action);
+    }
+
+    /**
+     * Создаёт обработчик операции изменения данных.
+     *
+     * @param payloadType тип данных запроса или null
+     * @param priority    класс приоритета
+     * @param action      действие
+     * @return обработчик
+     */
+    public static OperationHandler write(Type payloadType, Priority priority, Action action) {
+        return new OperationHandler(payloadType, Access.WRITE, priority, 1, WRITE_TIMEOUT,
+                NO_TABLES, false, false, action);
+    }
+
+    /**
+     * Создаёт обработчик выгрузки данных в новый файл. Выгрузка только читает данные, но каждый запрос
+     * выполняется отдельно на основном сервере: одинаковые запросы не объединяются в один ответ с одним файлом,
+     * реплика не используется, а клиент не считается изменявшим данные.
+     *
+     * @param payloadType тип данных запроса или null
+     * @param priority    класс приоритета
+     * @param action      действие
+     * @return обработчик
+     */
+    public static OperationHandler export(Type payloadType, Priority priority, Action action) {
+        return new OperationHandler(payloadType, Access.EXPORT, priority, 1, READ_TIMEOUT,
+                NO_TABLES, false, false, action);
+    }
+
+    /**
+     * Создаёт обработчик служебной операции сеанса.
+     *
+     * @param payloadType тип данных запроса или null
+     * @param action      действие
+     * @return обработчик
+     */
+    public static OperationHandler session(Type payloadType, Action action) {
+        return new OperationHandler(payloadType, Access.SESSION, Priority.CRITICAL, 1, READ_TIMEOUT,
+                NO_TABLES, false, false, action);
+    }
+
+    /**
+     * Возвращает копию обработчика с другой стоимостью и допустимым временем выполнения.
+     *
+     * @param cost          стоимость обслуживания
+     * @param timeoutMillis допустимое время выполнения, мс
+     * @return обработчик
+     */
+    public OperationHandler withBudget(int cost, long timeoutMillis) {
+        return new OperationHandler(payloadType, access, priority, cost, timeoutMillis, dependsOn, callerScoped,
+                adminOnly, action);
+    }
+
+    /**
+     * Возвращает копию обработчика, ответ которого кэшируется до изменения указанных таблиц.
+     *
+     * @param tables таблицы, из которых строится ответ
+     * @return обработчик
+     */
+    public OperationHandler cachedUntilChanged(TableVersion... tables) {
+        return new OperationHandler(payloadType, access, priority, cost, timeoutMillis, tables, callerScoped,
+                adminOnly, action);
+    }
+
+    /**
+     * Возвращает копию обработчика операции над данными конкретного пользователя.
+     * Действие проверяет права вызывающего по сессии (см. {@link SessionRegistry#authorize}),
+     * поэтому одинаковые запросы на чтение объединяются только в пределах одной сессии.
+     *
+     * @return обработчик
+     */
+    public OperationHandler scopedToCaller() {
+        return new OperationHandler(payloadType, access, priority, cost, timeoutMillis, dependsOn, true, adminOnly,
+                action);
+    }
+
+    /**
+     * Возвращает копию обработчика операции, доступной только администратору.
+     * Сессия вызывающего проверяется диспетчером до выполнения (см. {@link SessionRegistry#requireAdmin}).
+     *
+     * @return обработчик
+     */
+    public OperationHandler restrictedToAdmin() {
+        return new OperationHandler(payloadType, access, priority, cost, timeoutMillis, dependsOn, callerScoped, true,
+                action);
+    }
+
+    /**
+     * Проверяет, только ли читает операция данные.
+     *
+     * @return true для операций чтения
+     */
+    public boolean isRead() {
+        return access == Access.READ;
+    }
+
+    /**
+     * Проверяет, кэшируется ли ответ на операцию.
+     *
+     * @return true, если ответ зависит от версий таблиц
+     */
+    public boolean isCacheable() {
+        return dependsOn.length > 0;
+    }
+
+    /**
+     * Возвращает текущую версию данных, из которых строится ответ.
+     *
+     * @return общая версия таблиц
+     */
+    public long dataVersion() {
+        return TableVersion.combined(dependsOn);
+    }
+
+    /**
+     * Класс доступа операции к данным.
+     */
+    public enum Access {
+        READ,
+        WRITE,
+        EXPORT,
+        SESSION
+    }
+
+    /**
+     * Действие, выполняющее операцию.
+     */
+    @FunctionalInterface
+    public interface Action {
+        /**
+         * Выполняет операцию.
+         *
+         * @param controllers контроллеры сервера
+         * @param request     запрос клиента
+         * @return ответ на запрос
+         */
+        Response execute(Controllers controllers, Request request);
+    }
+}
@@ -0,0 +1,182 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Operation;
+import by.mrtorex.businessshark.server.enums.Priority;
+import by.mrtorex.businessshark.server.model.entities.Company;
+import by.mrtorex.businessshark.server.model.entities.Stock;
+import by.mrtorex.businessshark.server.model.entities.User;
+import by.mrtorex.businessshark.server.repositories.TableVersion;
+import by.mrtorex.businessshark.server.utils.Pair;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static by.mrtorex.businessshark.server.network.OperationHandler.export;
+import static by.mrtorex.businessshark.server.network.OperationHandler.read;
+import static by.mrtorex.businessshark.server.network.OperationHandler.session;
+import static by.mrtorex.businessshark.server.network.OperationHandler.write;
+
+/**
+ * Реестр обработчиков операций.
+ * Для каждой операции задаются тип данных запроса, класс доступа, приоритет, стоимость обслуживания,
+ * допустимое время выполнения, зависимость ответа от таблиц, права вызывающего и выполняющее её действие.
+ * Реестр строится один раз при загрузке класса и проверяет, что зарегистрированы все операции.
+ */
+public final class OperationRegistry {
+    private static final int BULK_COST = 4;
+    private static final long BULK_TIMEOUT = 15000;
+    private static final long TRANSFER_TIMEOUT = 120000;
+
+    private static final Type USER_PAIR = new TypeToken<Pair<User, User>>() {}.getType();
+    private static final Type STOCK_COMPANY_PAIR = new TypeToken<Pair<Stock, Company>>() {}.getType();
+    private static final Type USER_STOCK_CHANGE = new TypeToken<Pair<Pair<Stock, Integer>, Integer>>() {}.getType();
+    private static final Type USER_STOCK_KEY = new TypeToken<Pair<Integer, Integer>>() {}.getType();
+    private static final Type USER_ACCOUNT = new TypeToken<Pair<Integer, Double>>() {}.getType();
+
+    private static final Map<Operation, OperationHandler> handlers = new EnumMap<>(Operation.class);
+
+    static {
+        register(Operation.CREATE_STOCK, write(Stock.class, Priority.HIGH,
+                (c, r) -> c.stocks().createStock(r)));
+        register(Operation.READ_STOCK_DATA, read(Integer.class, Priority.NORMAL,
+                (c, r) -> c.stocks().getStockByTicker(r)));
+        register(Operation.UPDATE_STOCK, write(Stock.class, Priority.HIGH,
+                (c, r) -> c.stocks().updateStock(r)));
+        register(Operation.DELETE_STOCK, write(Integer.class, Priority.HIGH,
+                (c, r) -> c.stocks().deleteStock(r)));
+
+        register(Operation.CREATE_COMPANY, write(Company.class, Priority.HIGH,
+                (c, r) -> c.companies().createCompany(r)));
+        register(Operation.READ_COMPANY_DATA, read(String.class, Priority.NORMAL,
+                (c, r) -> c.companies().getCompanyByName(r)));
+        register(Operation.UPDATE_COMPANY, write(Company.class, Priority.HIGH,
+                (c, r) -> c.companies().updateCompany(r)));
+        register(Operation.DELETE_COMPANY, write(String.class, Priority.HIGH,
+                (c, r) -> c.companies().deleteCompany(r)));
+
+        register(Operation.READ_USER, read(String.class, Priority.NORMAL,
+                (c, r) -> c.users().readEntity(r)));
+        register(Operation.DELETE_USER, write(String.class, Priority.HIGH,
+                (c, r) -> c.users().deleteUser(r))
+                .scopedToCaller());
+        register(Operation.UPDATE_USER, write(USER_PAIR, Priority.HIGH,
+                (c, r) -> c.users().updateEntity(r))
+                .scopedToCaller());
+        register(Operation.CREATE_USER, write(User.class, Priority.HIGH,
+                (c, r) -> c.users().register(r)));
+        register(Operation.REGISTER, write(User.class, Priority.NORMAL,
+                (c, r) -> c.users().register(r)));
+
+        register(Operation.GET_ALL_COMPANIES, read(null, Priority.BULK,
+                (c, r) -> c.companies().getAllCompanies())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .cachedUntilChanged(TableVersion.COMPANIES));
+        register(Operation.GET_ALL_USERS, read(null, Priority.BULK,
+                (c, r) -> c.users().getAllUsers())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .restrictedToAdmin());
+        register(Operation.GET_ALL_STOCKS, read(null, Priority.BULK,
+                (c, r) -> c.stocks().getAllStocks())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .cachedUntilChanged(TableVersion.STOCKS));
+        register(Operation.GET_ALL_ROLES, read(null, Priority.BULK,
+                (c, r) -> c.roles().getAllRoles())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .cachedUntilChanged(TableVersion.ROLES));
+        register(Operation.GET_ALL_STOCKS_WITH_NO_COMPANY, read(null, Priority.BULK,
+                (c, r) -> c.stocks().getAllStocksWithNoCompany())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .cachedUntilChanged(TableVersion.STOCKS, TableVersion.COMPANY_STOCK));
+
+        register(Operation.GET_COMPANY_BY_STOCK, read(Stock.class, Priority.NORMAL,
+                (c, r) -> c.companies().getCompanyByStock(r)));
+        register(Operation.GET_STOCKS_BY_COMPANY, read(Company.class, Priority.NORMAL,
+                (c, r) -> c.companies().getCompanyStocks(r)));
+        register(Operation.JOIN_STOCK_COMPANY, write(STOCK_COMPANY_PAIR, Priority.HIGH,
+                (c, r) -> c.companies().addStockToCompany(r)));
+        register(Operation.SEPARATE_STOCK_COMPANY, write(STOCK_COMPANY_PAIR, Priority.HIGH,
+                (c, r) -> c.companies().removeStockFromCompany(r)));
+
+        register(Operation.ADD_USER_STOCK, write(USER_STOCK_CHANGE, Priority.CRITICAL,
+                (c, r) -> c.portfolio().addUserStock(r))
+                .scopedToCaller());
+        register(Operation.GET_USER_STOCK, read(USER_STOCK_KEY, Priority.HIGH,
+                (c, r) -> c.portfolio().getUserStock(r))
+                .scopedToCaller());
+        register(Operation.UPDATE_USER_STOCK, write(USER_STOCK_CHANGE, Priority.CRITICAL,
+                (c, r) -> c.portfolio().updateUserStock(r))
+                .scopedToCaller());
+        register(Operation.DELETE_USER_STOCK, write(USER_STOCK_KEY, Priority.CRITICAL,
+                (c, r) -> c.portfolio().deleteUserStock(r))
+                .scopedToCaller());
+        register(Operation.GET_ALL_USER_STOCKS, read(Integer.class, Priority.HIGH,
+                (c, r) -> c.portfolio().getAllUserStocks(r))
+                .scopedToCaller());
+        register(Operation.GET_ALL_USER_STOCK_IDS, read(null, Priority.BULK,
+                (c, r) -> c.portfolio().getAllUserStockIds())
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .restrictedToAdmin());
+        register(Operation.GET_USER_ACCOUNT, read(Integer.class, Priority.HIGH,
+                (c, r) -> c.portfolio().getAccount(r))
+                .scopedToCaller());
+        register(Operation.SET_USER_ACCOUNT, write(USER_ACCOUNT, Priority.CRITICAL,
+                (c, r) -> c.portfolio().setAccount(r))
+                .scopedToCaller());
+        register(Operation.GET_STOCK_AVAILABLE_AMOUNT, read(Integer.class, Priority.HIGH,
+                (c, r) -> c.portfolio().getStockAvailableAmount(r)));
+        register(Operation.GET_DASHBOARD, read(Integer.class, Priority.HIGH,
+                (c, r) -> c.dashboard().getDashboard(r))
+                .withBudget(BULK_COST, BULK_TIMEOUT)
+                .scopedToCaller());
+
+        register(Operation.IMPORT_CATALOG, write(String.class, Priority.BULK,
+                (c, r) -> c.catalog().importCatalog(r))
+                .withBudget(BULK_COST, TRANSFER_TIMEOUT)
+                .restrictedToAdmin());
+        register(Operation.EXPORT_PORTFOLIOS, export(null, Priority.BULK,
+                (c, r) -> c.portfolioExport().exportPortfolios(r))
+                .withBudget(BULK_COST, TRANSFER_TIMEOUT)
+                .restrictedToAdmin());
+
+        register(Operation.LOGIN, session(User.class,
+                (c, r) -> c.users().login(r)));
+        register(Operation.PING, session(null,
+                (c, r) -> new Response(true, "PONG", null)));
+        // Отмене нужен владелец отменяемого запроса, поэтому её выполняет RequestDispatcher, не вызывая действие.
+        register(Operation.CANCEL, session(Long.class,
+                (c, r) -> new Response(false, "Отмена выполняется диспетчером запросов", null)));
+        register(Operation.DISCONNECT, session(null, (c, r) -> {
+            c.sessions().revoke(r.getSessionToken());
+            return new Response(true, "Отключение выполнено успешно", null);
+        }));
+
+        Set<Operation> missing = EnumSet.complementOf(EnumSet.copyOf(handlers.keySet()));
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Не зарегистрированы обработчики операций: " + missing);
+        }
+    }
+
+    private OperationRegistry() {
+    }
+
+    /**
+     * Возвращает обработчик операции.
+     *
+     * @param operation операция
+     * @return обработчик операции
+     */
+    public static OperationHandler get(Operation operation) {
+        return handlers.get(operation);
+    }
+
+    private static void register(Operation operation, OperationHandler handler) {
+        if (handlers.putIfAbsent(operation, handler) != null) {
+            throw new IllegalStateException("Повторная регистрация обработчика операции " + operation);
+        }
+    }
+}
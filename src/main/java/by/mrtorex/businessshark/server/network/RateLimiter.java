@@ -0,0 +1,153 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Operation;
+import by.mrtorex.businessshark.server.model.entities.User;
+import by.mrtorex.businessshark.server.serializer.Deserializer;
+import by.mrtorex.businessshark.server.serializer.Serializer;
+import by.mrtorex.businessshark.server.utils.TokenBucket;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничитель частоты запросов на основе ведер токенов.
+ * Лимиты задаются для отдельных операций и действуют в пределах одного подключения;
+ * для операции LOGIN дополнительно действует лимит на имя пользователя, общий для всех подключений.
+ * <p>
+ * Параметры читаются из server.properties в формате {@code RATE_LIMIT_<ОПЕРАЦИЯ> = <интервал мс>,<ёмкость>},
+ * лимит по имени пользователя — из {@code RATE_LIMIT_LOGIN_USERNAME}. Операции без лимита не ограничиваются.
+ */
+public class RateLimiter {
+    private static final Logger logger = LogManager.getLogger(RateLimiter.class);
+    private static final String KEY_PREFIX = "RATE_LIMIT_";
+    private static final String LOGIN_USERNAME_KEY = KEY_PREFIX + "LOGIN_USERNAME";
+
+    private final Map<Operation, Limit> operationLimits = new EnumMap<>(Operation.class);
+    private final Limit loginUsernameLimit;
+    private final Map<String, TokenBucket> loginBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Создаёт ограничитель по параметрам из конфигурационного файла.
+     *
+     * @param bundle конфигурация сервера
+     * @throws IllegalArgumentException если параметры лимита имеют неверный формат
+     */
+    public RateLimiter(ResourceBundle bundle) {
+        for (Operation operation : Operation.values()) {
+            String key = KEY_PREFIX + operation.name();
+            if (bundle.containsKey(key)) {
+                operationLimits.put(operation, Limit.parse(key, bundle.getString(key)));
+            }
+        }
+        loginUsernameLimit = bundle.containsKey(LOGIN_USERNAME_KEY)
+                ? Limit.parse(LOGIN_USERNAME_KEY, bundle.getString(LOGIN_USERNAME_KEY))
+                : null;
+        logger.info("Ограничитель частоты запросов настроен для операций: {}", operationLimits.keySet());
+    }
+
+    /**
+     * Создаёт набор ведер для нового подключения.
+     *
+     * @return лимиты подключения
+     */
+    public ConnectionLimits forConnection() {
+        return new ConnectionLimits();
+    }
+
+    /**
+     * Удаляет заполненные ведра имён пользователей, которые давно не использовались.
+     */
+    public void evictIdleBuckets() {
+        loginBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    /**
+     * Формирует ответ об исчерпании лимита.
+     *
+     * @param retryAfterMillis время до повторной попытки, мс
+     * @return ответ с временем ожидания в поле данных
+     */
+    public static Response throttledResponse(long retryAfterMillis) {
+        return new Response(false, "Слишком много запросов, повторите через " + retryAfterMillis + " мс",
+                Serializer.toJson(retryAfterMillis));
+    }
+
+    /**
+     * Лимиты одного подключения.
+     */
+    public final class ConnectionLimits {
+        private final Map<Operation, TokenBucket> buckets = new EnumMap<>(Operation.class);
+
+        private ConnectionLimits() {
+            operationLimits.forEach((operation, limit) -> buckets.put(operation, limit.newBucket()));
+        }
+
+        /**
+         * Пытается захватить токен для запроса.
+         *
+         * @param request запрос клиента
+         * @return 0, если запрос разрешён, иначе время до повторной попытки, мс
+         */
+        public long tryAcquire(Request request) {
+            TokenBucket bucket = buckets.get(request.getOperation());
+            long retryAfter = bucket == null ? 0 : bucket.tryAcquire();
+            if (retryAfter == 0 && request.getOperation() == Operation.LOGIN && loginUsernameLimit != null) {
+                retryAfter = tryAcquireLogin(request);
+            }
+            if (retryAfter > 0) {
+                logger.warn("Запрос {} ограничен по частоте, повтор через {} мс", request.getOperation(), retryAfter);
+            }
+            return retryAfter;
+        }
+
+        /**
+         * Проверяет, что ведра подключения заполнены, то есть лимиты не расходовались как минимум
+         * время полного пополнения и набор ведер можно удалить без ослабления ограничений.
+         *
+         * @return true, если все ведра заполнены
+         */
+        public boolean isIdle() {
+            return buckets.values().stream().allMatch(TokenBucket::isFull);
+        }
+
+        private long tryAcquireLogin(Request request) {
+            String username;
+            try {
+                Object data = new Deserializer().extractData(request);
+                username = data instanceof User user ? user.getUsername() : null;
+            } catch (IllegalArgumentException e) {
+                username = null;
+            }
+            if (username == null) return 0;
+            return loginBuckets.computeIfAbsent(username, name -> loginUsernameLimit.newBucket()).tryAcquire();
+        }
+    }
+
+    /**
+     * Параметры лимита.
+     *
+     * @param intervalMillis интервал пополнения одного токена, мс
+     * @param burst          ёмкость ведра
+     */
+    private record Limit(long intervalMillis, int burst) {
+
+        private static Limit parse(String key, String value) {
+            String[] parts = value.split(",");
+            try {
+                if (parts.length != 2) throw new NumberFormatException(value);
+                return new Limit(Long.parseLong(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверный формат лимита " + key + ": " + value, e);
+            }
+        }
+
+        private TokenBucket newBucket() {
+            return new TokenBucket(intervalMillis, burst);
+        }
+    }
+}
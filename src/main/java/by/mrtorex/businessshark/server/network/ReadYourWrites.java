@@ -0,0 +1,64 @@
+package by.mrtorex.businessshark.server.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Учёт недавних изменений данных клиентами.
+ * Реплика базы данных отстаёт от основного сервера, поэтому клиент, недавно изменивший данные,
+ * в течение заданного окна читает их с основного сервера и видит свои изменения.
+ */
+public class ReadYourWrites {
+    private static final Logger logger = LogManager.getLogger(ReadYourWrites.class);
+    private final Map<Object, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    /**
+     * Создаёт учёт изменений.
+     *
+     * @param windowMillis окно чтения с основного сервера после изменения, мс
+     */
+    public ReadYourWrites(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Запоминает изменение данных клиентом.
+     *
+     * @param client клиент (владелец запроса) или null
+     */
+    public void recordWrite(Object client) {
+        if (client != null) {
+            lastWrites.put(client, System.nanoTime());
+        }
+    }
+
+    /**
+     * Проверяет, должен ли клиент читать данные с основного сервера.
+     *
+     * @param client клиент (владелец запроса) или null
+     * @return true, если клиент изменял данные в пределах окна
+     */
+    public boolean mustReadPrimary(Object client) {
+        if (client == null) return false;
+        Long lastWrite = lastWrites.get(client);
+        return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    /**
+     * Удаляет записи об изменениях, вышедших за пределы окна.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int before = lastWrites.size();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+        int evicted = before - lastWrites.size();
+        if (evicted > 0) {
+            logger.debug("Удалено устаревших записей об изменениях: {}", evicted);
+        }
+    }
+}
@@ -7,16 +7,20 @@ import lombok.Data;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import java.io.Serial;
 import java.io.Serializable;
 
 /**
  * Запрос, передаваемый от клиента к серверу.
- * Содержит операцию и связанные с ней данные.
+ * Содержит операцию, связанные с ней данные и, при наличии, токен сессии клиента,
+ * допустимое время ожидания ответа и идентификатор запроса.
  */
 @Data
 @AllArgsConstructor
 @RequiredArgsConstructor
 public class Request implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 8364199217593926616L;
 
     /**
      * Операция, которую необходимо выполнить.
@@ -28,4 +32,47 @@ public class Request implements Serializable {
      * Данные, необходимые для выполнения операции.
      */
     private String data;
+
+    /**
+     * Токен сессии, выданный сервером при входе. Может отсутствовать.
+     */
+    private String sessionToken;
+
+    /**
+     * Время, в течение которого клиент ожидает ответ, мс. Если не задано, используется
+     * допустимое время операции на сервере; большие значения также ограничиваются им.
+     */
+    private Long timeoutMillis;
+
+    /**
+     * Идентификатор запроса, назначаемый клиентом и уникальный в пределах подключения.
+     * Запрос с идентификатором может быть отменён операцией {@link Operation#CANCEL}, а ответ на него
+     * содержит тот же идентификатор и может обогнать ответы на менее приоритетные запросы подключения.
+     * Может отсутствовать.
+     */
+    private Long requestId;
+
+    /**
+     * Конструктор запроса без ограничения времени ожидания.
+     *
+     * @param operation    операция
+     * @param data         данные операции в формате JSON
+     * @param sessionToken токен сессии
+     */
+    public Request(@NonNull Operation operation, String data, String sessionToken) {
+        this.operation = operation;
+        this.data = data;
+        this.sessionToken = sessionToken;
+    }
+
+    /**
+     * Конструктор запроса без токена сессии.
+     *
+     * @param operation операция
+     * @param data      данные операции в формате JSON
+     */
+    public Request(@NonNull Operation operation, String data) {
+        this.operation = operation;
+        this.data = data;
+    }
 }
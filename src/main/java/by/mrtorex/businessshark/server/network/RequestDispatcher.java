@@ -0,0 +1,366 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.config.ReplicaRouting;
+import by.mrtorex.businessshark.server.enums.Operation;
+import by.mrtorex.businessshark.server.exceptions.RequestCancelledException;
+import by.mrtorex.businessshark.server.exceptions.RequestTimeoutException;
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.serializer.Deserializer;
+import by.mrtorex.businessshark.server.utils.CancellationToken;
+import by.mrtorex.businessshark.server.utils.Deadline;
+import by.mrtorex.businessshark.server.utils.SingleFlight;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Диспетчер запросов, общий для всех подключений.
+ * Выполняет запрос обработчиком операции из {@link OperationRegistry}; одновременные одинаковые
+ * запросы на чтение объединяются, а кэшируемые ответы берутся из кэша, пока данные не изменились.
+ * Каждый запрос выполняется с крайним сроком (см. {@link Deadline}), который ограничивает
+ * время выполнения запросов к базе данных, и может быть отменён клиентом операцией {@link Operation#CANCEL}.
+ * <p>
+ * Некэшируемые запросы на чтение выполняются на реплике базы данных, если клиент недавно не изменял данные
+ * (см. {@link ReadYourWrites}). Кэшируемые ответы всегда строятся по основному серверу: ответ, построенный
+ * по отстающей реплике, остался бы в кэше под новой версией таблиц.
+ */
+public class RequestDispatcher {
+    private static final Logger logger = LogManager.getLogger(RequestDispatcher.class);
+    private static final String INTERNAL_ERROR = "Внутренняя ошибка сервера";
+
+    private final SingleFlight<ReadKey, Response> readRequests = new SingleFlight<>();
+    private final Map<InFlightKey, CancellationToken> inFlight = new ConcurrentHashMap<>();
+    private final Map<Operation, OperationMetrics> metrics = new EnumMap<>(Operation.class);
+    private final Deserializer deserializer = new Deserializer();
+    private final ResponseCache responseCache;
+    private final ReadYourWrites readYourWrites;
+    private final Controllers controllers;
+
+    /**
+     * Создаёт диспетчер запросов.
+     *
+     * @param responseCache   кэш ответов на запросы списков каталога
+     * @param sessionRegistry таблица сессий пользователей
+     * @param readYourWrites  учёт недавних изменений данных клиентами
+     * @param exportDirectory каталог файлов массовой выгрузки
+     * @param maxRequestSize  наибольший размер данных запроса импорта каталога
+     */
+    public RequestDispatcher(ResponseCache responseCache, SessionRegistry sessionRegistry,
+                             ReadYourWrites readYourWrites, Path exportDirectory, int maxRequestSize) {
+        this.responseCache = responseCache;
+        this.readYourWrites = readYourWrites;
+        this.controllers = new Controllers(sessionRegistry, exportDirectory, maxRequestSize);
+        for (Operation operation : Operation.values()) {
+            metrics.put(operation, new OperationMetrics());
+        }
+    }
+
+    /**
+     * Принимает запрос, полученный в данный момент: фиксирует его крайний срок (время ожидания клиента,
+     * но не более допустимого времени операции) и, если у запроса есть идентификатор, делает его
+     * доступным для отмены владельцем.
+     *
+     * @param request объект запроса от клиента
+     * @param owner   владелец запроса, в пределах которого уникальны идентификаторы запросов;
+     *                null, если запрос нельзя отменить
+     * @return принятый запрос
+     */
+    public AcceptedRequest accept(Request request, Object owner) {
+        long timeoutMillis = OperationRegistry.get(request.getOperation()).timeoutMillis();
+        Long requested = request.getTimeoutMillis();
+        if (requested != null && requested > 0) {
+            timeoutMillis = Math.min(timeoutMillis, requested);
+        }
+        AcceptedRequest accepted = new AcceptedRequest(request, owner,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), new CancellationToken());
+        InFlightKey key = accepted.key();
+        if (key != null && request.getOperation() != Operation.CANCEL) {
+            inFlight.putIfAbsent(key, accepted.cancellation());
+        }
+        return accepted;
+    }
+
+    /**
+     * Выполняет принятый запрос. Одновременные одинаковые запросы на чтение (та же операция, те же данные
+     * и, для кэшируемых операций, та же версия данных) разделяют одно выполнение и один готовый ответ; ответы на кэшируемые операции
+     * берутся из кэша, пока данные не изменились. Если запрос, выполнявший общее чтение, отменён или
+     * у него истёк крайний срок, остальные участники выполняют его самостоятельно, каждый со своим сроком. Клиент, недавно изменявший данные,
+     * читает их с основного сервера, не объединяясь с запросами, выполняемыми на реплике.
+     * Сессия вызывающего операции администратора проверяется до выполнения и объединения.
+     *
+     * @param accepted принятый запрос (см. {@link #accept(Request, Object)})
+     * @return ответ на запрос
+     */
+    public Response dispatch(AcceptedRequest accepted) {
+        Request request = accepted.request();
+        Operation operation = request.getOperation();
+        try {
+            if (operation == Operation.CANCEL) {
+                return cancel(accepted);
+            }
+            OperationHandler handler = OperationRegistry.get(operation);
+            if (handler.adminOnly()) {
+                try {
+                    controllers.sessions().requireAdmin(request.getSessionToken());
+                } catch (ResponseException e) {
+                    return new Response(false, e.getMessage(), null);
+                }
+            }
+            if (!handler.isRead()) {
+                Response response = execute(handler, accepted, false);
+                if (response.isSuccess() && handler.access() == OperationHandler.Access.WRITE) {
+                    readYourWrites.recordWrite(accepted.owner());
+                }
+                return response;
+            }
+            boolean replicaAllowed = !handler.isCacheable() && !readYourWrites.mustReadPrimary(accepted.owner());
+            if (!handler.isCacheable() && !replicaAllowed) {
+                return execute(handler, accepted, false);
+            }
+            String scope = handler.callerScoped() ? request.getSessionToken() : null;
+            LongFunction<Response> coalesced = version -> readRequests.execute(
+                    new ReadKey(operation, version, scope, request.getData()),
+                    () -> processShared(handler, accepted, replicaAllowed));
+            try {
+                return handler.isCacheable()
+                        ? responseCache.get(operation, handler::dataVersion, coalesced)
+                        : coalesced.apply(0);
+            } catch (RequestCancelledException | RequestTimeoutException e) {
+                return execute(handler, accepted, replicaAllowed);
+            }
+        } finally {
+            InFlightKey key = accepted.key();
+            if (key != null) {
+                inFlight.remove(key, accepted.cancellation());
+            }
+        }
+    }
+
+    /**
+     * Проверяет, является ли ответ ответом о внутренней ошибке сервера, а не об ошибке в данных запроса.
+     *
+     * @param response ответ на запрос
+     * @return true для ответа о внутренней ошибке
+     */
+    public static boolean isInternalError(Response response) {
+        return !response.isSuccess() && INTERNAL_ERROR.equals(response.getMessage());
+    }
+
+    /**
+     * Отменяет все выполняющиеся и ожидающие запросы владельца, например при разрыве соединения.
+     *
+     * @param owner владелец запросов
+     */
+    public void cancelAll(Object owner) {
+        inFlight.forEach((key, cancellation) -> {
+            if (key.owner().equals(owner)) {
+                cancellation.cancel();
+            }
+        });
+    }
+
+    /**
+     * Записывает в журнал количество и среднее время выполнения операций, а также число выполнений,
+     * превысивших допустимое время операции.
+     */
+    public void logOperationMetrics() {
+        metrics.forEach((operation, operationMetrics) -> {
+            long count = operationMetrics.count.sum();
+            if (count == 0) return;
+            logger.info("Операция {}: выполнено {}, среднее время {} мс, превышений времени {}",
+                    operation, count,
+                    TimeUnit.NANOSECONDS.toMillis(operationMetrics.totalNanos.sum() / count),
+                    operationMetrics.overBudget.sum());
+        });
+    }
+
+    /**
+     * Отмечает отменённым запрос владельца, идентификатор которого передан в данных операции {@link Operation#CANCEL}.
+     *
+     * @param accepted принятый запрос на отмену
+     * @return ответ на запрос
+     */
+    private Response cancel(AcceptedRequest accepted) {
+        if (accepted.owner() == null) {
+            return new Response(false, "Отмена запросов недоступна для этого подключения", null);
+        }
+        Long requestId;
+        try {
+            requestId = (Long) deserializer.extractData(accepted.request());
+        } catch (IllegalArgumentException e) {
+            return new Response(false, e.getMessage(), null);
+        }
+        if (requestId == null) {
+            return new Response(false, "Не указан идентификатор отменяемого запроса", null);
+        }
+        CancellationToken cancellation = inFlight.get(new InFlightKey(accepted.owner(), requestId));
+        if (cancellation == null) {
+            return new Response(false, "Запрос " + requestId + " не выполняется", null);
+        }
+        cancellation.cancel();
+        logger.info("Запрос {} отменён клиентом", requestId);
+        return new Response(true, "Запрос " + requestId + " отменён", null);
+    }
+
+    /**
+     * Выполняет запрос обработчиком операции без объединения с другими запросами.
+     *
+     * @param handler        обработчик операции
+     * @param accepted       принятый запрос
+     * @param replicaAllowed разрешено ли чтение с реплики
+     * @return ответ на запрос
+     */
+    private Response execute(OperationHandler handler, AcceptedRequest accepted, boolean replicaAllowed) {
+        try {
+            return processRequest(handler, accepted, replicaAllowed);
+        } catch (RequestCancelledException e) {
+            return new Response(false, e.getMessage(), null);
+        }
+    }
+
+    /**
+     * Выполняет общее чтение объединённых запросов от имени первого из них.
+     * Неуспешный ответ после наступления его крайнего срока не передаётся остальным участникам:
+     * их сроки могут быть позже, поэтому они получают исключение и выполняют чтение сами.
+     * Первый запрос при этом сразу получает ответ об истечении времени.
+     *
+     * @param handler        обработчик операции
+     * @param accepted       первый из объединённых запросов
+     * @param replicaAllowed разрешено ли чтение с реплики
+     * @return ответ на запрос
+     * @throws RequestCancelledException если первый запрос отменён
+     * @throws RequestTimeoutException   если истёк крайний срок первого запроса
+     */
+    private Response processShared(OperationHandler handler, AcceptedRequest accepted, boolean replicaAllowed) {
+        Response response = processRequest(handler, accepted, replicaAllowed);
+        if (!response.isSuccess() && System.nanoTime() - accepted.deadlineNanos() >= 0) {
+            throw new RequestTimeoutException();
+        }
+        return response;
+    }
+
+    /**
+     * Выполняет запрос обработчиком операции, если он не отменён и крайний срок ещё не наступил.
+     * Контроллеры возвращают ошибки базы данных, в том числе тайм-ауты и прерванные чтения, неуспешным ответом,
+     * поэтому неуспешный ответ после наступления срока заменяется ответом об истечении времени.
+     * Ответ на отменённое чтение не возвращается: его мог прервать не дочитанный курсор.
+     *
+     * @param handler        обработчик операции
+     * @param accepted       принятый запрос
+     * @param replicaAllowed разрешено ли чтение с реплики
+     * @return ответ на запрос
+     * @throws RequestCancelledException если запрос отменён; исключение не превращается в ответ здесь,
+     *                                   чтобы объединённые с ним запросы могли выполниться самостоятельно
+     */
+    private Response processRequest(OperationHandler handler, AcceptedRequest accepted, boolean replicaAllowed) {
+        Request request = accepted.request();
+        long start = System.nanoTime();
+        try {
+            return ReplicaRouting.call(replicaAllowed,
+                    () -> CancellationToken.call(accepted.cancellation(),
+                            () -> Deadline.call(accepted.deadlineNanos(), () -> invoke(handler, request))));
+        } catch (RequestCancelledException e) {
+            throw e;
+        } catch (ResponseException e) {
+            logger.warn("Ошибка при выполнении операции: {}", e.getMessage());
+            return new Response(false, e.getMessage(), null);
+        } catch (Exception e) {
+            if (accepted.cancellation().isCancelled()) {
+                throw new RequestCancelledException();
+            }
+            if (System.nanoTime() - accepted.deadlineNanos() >= 0) {
+                logger.warn("Истекло время выполнения операции {}", request.getOperation());
+                return new Response(false, new RequestTimeoutException().getMessage(), null);
+            }
+            logger.error("Внутренняя ошибка сервера при обработке запроса", e);
+            return new Response(false, INTERNAL_ERROR, null);
+        } finally {
+            metrics.get(request.getOperation()).record(System.nanoTime() - start, handler.timeoutMillis());
+        }
+    }
+
+    /**
+     * Вызывает действие обработчика, проверяя отмену и крайний срок до и после вызова.
+     *
+     * @param handler обработчик операции
+     * @param request объект запроса от клиента
+     * @return ответ на запрос
+     */
+    private Response invoke(OperationHandler handler, Request request) {
+        CancellationToken.check();
+        Deadline.check();
+        Response response = handler.action().execute(controllers, request);
+        if (handler.isRead() || !response.isSuccess()) {
+            CancellationToken.check();
+        }
+        if (!response.isSuccess()) {
+            Deadline.check();
+        }
+        return response;
+    }
+
+    /**
+     * Принятый к выполнению запрос.
+     *
+     * @param request       объект запроса от клиента
+     * @param owner         владелец запроса или null
+     * @param deadlineNanos крайний срок выполнения в шкале {@link System#nanoTime()}
+     * @param cancellation  признак отмены запроса
+     */
+    public record AcceptedRequest(Request request, Object owner, long deadlineNanos, CancellationToken cancellation) {
+
+        private InFlightKey key() {
+            return owner == null || request.getRequestId() == null
+                    ? null
+                    : new InFlightKey(owner, request.getRequestId());
+        }
+    }
+
+    /**
+     * Ключ объединения одинаковых запросов на чтение. Версия данных входит в ключ, чтобы запрос,
+     * увидевший новую версию, не получил ответ, построение которого началось до записи. Запросы на чтение
+     * данных пользователя объединяются только в пределах сессии: права проверяются при выполнении,
+     * и присоединившийся запрос иначе получил бы ответ, построенный по правам другой сессии.
+     *
+     * @param operation операция
+     * @param version   версия данных кэшируемой операции, 0 для некэшируемых
+     * @param session   токен сессии для операций над данными пользователя, иначе null
+     * @param data      данные запроса
+     */
+    private record ReadKey(Operation operation, long version, String session, String data) {
+    }
+
+    /**
+     * Ключ выполняющегося запроса: идентификаторы запросов уникальны только в пределах владельца.
+     *
+     * @param owner     владелец запроса
+     * @param requestId идентификатор запроса
+     */
+    private record InFlightKey(Object owner, long requestId) {
+    }
+
+    /**
+     * Метрики выполнения одной операции.
+     */
+    private static final class OperationMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+
+        private void record(long elapsedNanos, long timeoutMillis) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            if (elapsedNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                overBudget.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Priority;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Планировщик запросов с учётом приоритета операций и справедливым разделением между клиентами.
+ * <p>
+ * Каждое подключение имеет собственную очередь {@link ClientQueue}, запросы которой выполняются
+ * по одному, а запросы с идентификатором — по одному на класс приоритета, причём более приоритетные
+ * обгоняют менее приоритетные. Подключения, готовые к обслуживанию, находятся в кольце класса
+ * приоритета своего следующего запроса.
+ * Обработчик выбирает класс с наименьшим ключом «время ожидания головы кольца + класс × интервал старения»,
+ * поэтому долго ожидающие запросы с низким приоритетом со временем обгоняют новые запросы с высоким.
+ * Внутри класса подключения обслуживаются по алгоритму Deficit Round Robin: за проход кольца
+ * подключение получает квант, а каждый запрос списывает из дефицита свою стоимость, так что один
+ * клиент не может занять больше ограниченной доли обработчиков.
+ */
+public class RequestScheduler {
+    private static final Logger logger = LogManager.getLogger(RequestScheduler.class);
+    private static final String DRAINING_MESSAGE = "Сервер перезапускается, подключитесь повторно";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition queueChanged = lock.newCondition();
+    private final Map<Priority, ArrayDeque<ClientQueue>> readyRings = new EnumMap<>(Priority.class);
+    private final Set<ClientQueue> clients = new LinkedHashSet<>();
+    private final Thread[] workers;
+    private final long agingNanos;
+    private final int quantum;
+    private final int maxQueueDepth;
+    private volatile boolean running = true;
+    private boolean draining;
+
+    /**
+     * Создаёт планировщик и запускает потоки-обработчики.
+     *
+     * @param workerThreads количество потоков-обработчиков
+     * @param agingMillis   интервал старения одного класса приоритета в миллисекундах
+     * @param quantum       квант дефицита, выдаваемый подключению за проход кольца
+     * @param maxQueueDepth максимальное число ожидающих запросов одного подключения
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public RequestScheduler(int workerThreads, long agingMillis, int quantum, int maxQueueDepth) {
+        if (workerThreads <= 0 || agingMillis <= 0 || quantum <= 0 || maxQueueDepth <= 0) {
+            throw new IllegalArgumentException("Параметры планировщика должны быть положительными");
+        }
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+        this.quantum = quantum;
+        this.maxQueueDepth = maxQueueDepth;
+        for (Priority priority : Priority.values()) {
+            readyRings.put(priority, new ArrayDeque<>());
+        }
+
+        this.workers = new Thread[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            workers[i] = new Thread(this::workerLoop, "Request-Worker-" + (i + 1));
+            workers[i].start();
+        }
+        logger.info("Планировщик запросов запущен: обработчиков {}, интервал старения {} мс, квант {}, глубина очереди {}",
+                workerThreads, agingMillis, quantum, maxQueueDepth);
+    }
+
+    /**
+     * Регистрирует очередь клиента, которому нельзя отправить сообщение без запроса.
+     *
+     * @param clientName имя клиента для журналирования и метрик
+     * @return очередь подключения
+     */
+    public ClientQueue register(String clientName) {
+        return register(clientName, null);
+    }
+
+    /**
+     * Регистрирует очередь нового клиентского подключения.
+     *
+     * @param clientName имя клиента для журналирования и метрик
+     * @param notifier   получатель сообщений, отправляемых клиенту без запроса, например о дренировании
+     * @return очередь подключения
+     */
+    public ClientQueue register(String clientName, Consumer<Response> notifier) {
+        ClientQueue queue = new ClientQueue(clientName, notifier);
+        lock.lock();
+        try {
+            clients.add(queue);
+        } finally {
+            lock.unlock();
+        }
+        return queue;
+    }
+
+    /**
+     * Снимает очередь подключения с обслуживания и отбрасывает ожидающие запросы.
+     * Уже выполняющийся запрос завершается, но подключение больше не попадает в кольцо.
+     *
+     * @param queue очередь подключения
+     */
+    public void unregister(ClientQueue queue) {
+        lock.lock();
+        try {
+            if (queue.closed) return;
+            queue.closed = true;
+            if (queue.ringPriority != null) {
+                readyRings.get(queue.ringPriority).remove(queue);
+                queue.ringPriority = null;
+            }
+            if (!queue.pending.isEmpty()) {
+                logger.info("Отброшено {} необработанных запросов клиента {}",
+                        queue.pending.size(), queue.getClientName());
+                queue.pending.clear();
+            }
+            clients.remove(queue);
+            queueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ставит запрос в очередь подключения.
+     * Если очередь подключения заполнена, вызывающий поток ждёт освобождения места.
+     * После остановки планировщика или закрытия подключения запрос отбрасывается,
+     * а во время дренирования вместо выполнения клиенту отправляется предложение переподключиться.
+     *
+     * @param queue     очередь подключения
+     * @param priority  класс приоритета запроса
+     * @param cost      стоимость обслуживания запроса в единицах дефицита
+     * @param correlated сопоставляет ли клиент ответ с запросом по идентификатору; такой запрос может
+     *                   обогнать запросы подключения с более низким приоритетом
+     * @param handler   обработчик, формирующий ответ
+     * @param responder получатель ответа, вызывается в потоке-обработчике до перехода к следующему запросу
+     * @return true, если запрос принят; false, если он отброшен и получатель ответа не будет вызван
+     * @throws InterruptedException если ожидание места в очереди прервано
+     */
+    public boolean submit(ClientQueue queue, Priority priority, int cost, boolean correlated,
+                          Supplier<Response> handler, Consumer<Response> responder) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (running && !queue.closed && queue.pending.size() >= maxQueueDepth) {
+                queueChanged.await();
+            }
+            if (!running || queue.closed) {
+                logger.warn("Запрос клиента {} отклонён: обслуживание остановлено", queue.getClientName());
+                return false;
+            }
+            if (draining) {
+                handler = RequestScheduler::drainingResponse;
+            }
+            queue.pending.addLast(new ClientQueue.PendingRequest(priority, cost, correlated, handler, responder,
+                    System.nanoTime()));
+            reschedule(queue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ожидает, пока все принятые запросы подключения будут обработаны.
+     *
+     * @param queue очередь подключения
+     * @throws InterruptedException если ожидание прервано
+     */
+    public void awaitIdle(ClientQueue queue) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!queue.closed && (queue.inFlight > 0 || !queue.pending.isEmpty())) {
+                queueChanged.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Переводит планировщик в режим дренирования и ожидает завершения всех принятых запросов.
+     * Новые запросы в этом режиме не выполняются: клиент получает ответ с предложением переподключиться.
+     * Каждому подключению, которому можно отправить сообщение без запроса, это предложение отправляется
+     * сразу, не дожидаясь его следующего запроса. Сообщение ставится в очередь подключения после уже
+     * принятых запросов, поэтому не нарушает порядок ответов на них.
+     *
+     * @param timeoutMillis максимальное время ожидания, мс
+     * @return true, если все принятые запросы завершились до истечения времени
+     * @throws InterruptedException если ожидание прервано
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (!draining) {
+                draining = true;
+                for (ClientQueue queue : clients) {
+                    if (queue.notifier == null) continue;
+                    queue.pending.addLast(new ClientQueue.PendingRequest(Priority.CRITICAL, 1, false,
+                            RequestScheduler::drainingResponse, queue.notifier, System.nanoTime()));
+                    reschedule(queue);
+                }
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (clients.stream().anyMatch(queue -> queue.inFlight > 0 || !queue.pending.isEmpty())) {
+                if (remaining <= 0) return false;
+                remaining = queueChanged.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Формирует ответ с предложением переподключиться, отправляемый клиентам во время дренирования.
+     *
+     * @return ответ о дренировании
+     */
+    static Response drainingResponse() {
+        return new Response(false, DRAINING_MESSAGE, null);
+    }
+
+    /**
+     * Возвращает суммарное количество запросов, ожидающих обработчика.
+     *
+     * @return длина всех очередей
+     */
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return clients.stream().mapToInt(queue -> queue.pending.size()).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записывает в журнал метрики очередей всех подключённых клиентов.
+     */
+    public void logClientMetrics() {
+        lock.lock();
+        try {
+            for (ClientQueue queue : clients) {
+                logger.info("Очередь клиента {}", queue.describeMetrics());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Немедленно останавливает обработчики и отклоняет новые запросы.
+     */
+    public void shutdownNow() {
+        running = false;
+        lock.lock();
+        try {
+            workAvailable.signalAll();
+            queueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        logger.info("Планировщик запросов остановлен");
+    }
+
+    /**
+     * Цикл потока-обработчика: выбирает очередной запрос, выполняет его и возвращает
+     * подключение в кольцо, если у него остались запросы, готовые к выполнению.
+     */
+    private void workerLoop() {
+        while (running) {
+            ClientQueue queue = null;
+            ClientQueue.PendingRequest request;
+
+            lock.lock();
+            try {
+                while (running && (queue = selectQueue()) == null) {
+                    workAvailable.await();
+                }
+                if (queue == null) return;
+                queue.ringPriority = null;
+                request = queue.take();
+                queue.recordWait(System.nanoTime() - request.enqueuedAt());
+                // Запрос более высокого класса того же подключения может выполняться параллельно
+                reschedule(queue);
+                queueChanged.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            execute(request);
+
+            lock.lock();
+            try {
+                queue.finish(request);
+                reschedule(queue);
+                queueChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Помещает подключение в кольцо класса приоритета его следующего запроса или убирает из колец,
+     * если готовых к выполнению запросов нет. Вызывается под блокировкой.
+     *
+     * @param queue очередь подключения
+     */
+    private void reschedule(ClientQueue queue) {
+        if (queue.closed) return;
+        ClientQueue.PendingRequest next = queue.next();
+        Priority target = next == null ? null : next.priority();
+        if (next == null && queue.pending.isEmpty()) {
+            queue.deficit = 0;
+        }
+        if (target == queue.ringPriority) return;
+        if (queue.ringPriority != null) {
+            readyRings.get(queue.ringPriority).remove(queue);
+        }
+        queue.ringPriority = target;
+        if (target != null) {
+            readyRings.get(target).addLast(queue);
+            workAvailable.signal();
+        }
+    }
+
+    /**
+     * Выполняет запрос и передаёт ответ получателю.
+     *
+     * @param request запрос для выполнения
+     */
+    private void execute(ClientQueue.PendingRequest request) {
+        Response response;
+        try {
+            response = request.handler().get();
+        } catch (Exception e) {
+            logger.error("Необработанная ошибка при выполнении запроса", e);
+            response = new Response(false, "Внутренняя ошибка сервера", null);
+        }
+        try {
+            request.responder().accept(response);
+        } catch (Exception e) {
+            logger.error("Ошибка при передаче ответа клиенту", e);
+        }
+    }
+
+    /**
+     * Выбирает подключение для обслуживания. Вызывается под блокировкой.
+     * Сначала выбирается кольцо с наименьшим ключом старения, затем внутри кольца
+     * подключения перебираются по кругу, пока одному из них не хватит дефицита на запрос.
+     *
+     * @return подключение, запрос которого следует выполнить, или null, если запросов нет
+     */
+    private ClientQueue selectQueue() {
+        ArrayDeque<ClientQueue> ring = null;
+        long bestKey = 0;
+        for (Map.Entry<Priority, ArrayDeque<ClientQueue>> entry : readyRings.entrySet()) {
+            ClientQueue first = entry.getValue().peekFirst();
+            if (first == null) continue;
+            long key = first.next().enqueuedAt() + entry.getKey().ordinal() * agingNanos;
+            if (ring == null || key - bestKey < 0) {
+                ring = entry.getValue();
+                bestKey = key;
+            }
+        }
+        if (ring == null) return null;
+
+        while (true) {
+            ClientQueue queue = ring.pollFirst();
+            int cost = queue.next().cost();
+            if (queue.deficit >= cost) {
+                queue.deficit -= cost;
+                return queue;
+            }
+            queue.deficit += quantum;
+            ring.addLast(queue);
+        }
+    }
+}
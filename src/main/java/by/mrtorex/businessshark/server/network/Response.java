@@ -3,15 +3,22 @@ package by.mrtorex.businessshark.server.network;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.io.Serial;
 import java.io.Serializable;
 
 /**
  * Ответ сервера на запрос клиента.
- * Содержит информацию об успешности операции, сообщение и данные.
+ * Содержит информацию об успешности операции, сообщение, данные и идентификатор запроса, на который отвечает.
  */
 @Data
 @AllArgsConstructor
 public class Response implements Serializable {
+    /**
+     * Совпадает с вычисленным значением до добавления идентификатора запроса,
+     * поэтому клиенты прежней версии по-прежнему читают ответы.
+     */
+    @Serial
+    private static final long serialVersionUID = -7606133071304396551L;
 
     /**
      * Статус успешности выполнения операции.
@@ -28,4 +35,32 @@ public class Response implements Serializable {
      * Дополнительные данные, возвращаемые в ответе.
      */
     private String data;
+
+    /**
+     * Идентификатор запроса, на который дан ответ, если клиент его указал.
+     * Позволяет сопоставить ответ с запросом, когда ответы подключения приходят не в порядке запросов.
+     */
+    private Long requestId;
+
+    /**
+     * Конструктор ответа без идентификатора запроса.
+     *
+     * @param success признак успешного выполнения
+     * @param message сообщение о результате
+     * @param data    данные ответа
+     */
+    public Response(boolean success, String message, String data) {
+        this(success, message, data, null);
+    }
+
+    /**
+     * Возвращает копию ответа с идентификатором запроса.
+     * Исходный ответ не изменяется: он может быть общим для нескольких клиентов.
+     *
+     * @param requestId идентификатор запроса
+     * @return ответ на запрос с указанным идентификатором
+     */
+    public Response withRequestId(Long requestId) {
+        return requestId == null ? this : new Response(success, message, data, requestId);
+    }
 }
@@ -0,0 +1,70 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.enums.Operation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш готовых ответов на кэшируемые операции.
+ * Ответ хранится вместе с версией таблиц, из которых он построен (см. {@link OperationHandler#dependsOn()}),
+ * и отдаётся без обращения к базе данных и сериализации, пока версия таблиц не изменится.
+ * Записи других экземпляров сервера версию не меняют; такой ответ устаревает с окончанием
+ * периода актуальности (см. {@link by.mrtorex.businessshark.server.repositories.TableVersion}).
+ */
+public class ResponseCache {
+    private static final Logger logger = LogManager.getLogger(ResponseCache.class);
+    private final Map<Operation, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Возвращает актуальный закэшированный ответ или строит новый.
+     * Версия фиксируется до построения ответа и передаётся построению, чтобы ответы разных версий
+     * не объединялись; если за время построения версия изменилась, ответ не кэшируется,
+     * так как он мог быть построен по данным до записи. Неуспешные ответы не кэшируются.
+     *
+     * @param operation кэшируемая операция
+     * @param versions  текущая версия данных ответа
+     * @param loader    построение ответа по зафиксированной версии
+     * @return ответ на запрос
+     */
+    public Response get(Operation operation, LongSupplier versions, LongFunction<Response> loader) {
+        long version = versions.getAsLong();
+        Entry entry = entries.get(operation);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.response();
+        }
+
+        misses.increment();
+        Response response = loader.apply(version);
+        if (response.isSuccess() && versions.getAsLong() == version) {
+            entries.merge(operation, new Entry(version, response),
+                    (current, fresh) -> fresh.version() >= current.version() ? fresh : current);
+        }
+        return response;
+    }
+
+    /**
+     * Записывает в журнал статистику попаданий в кэш.
+     */
+    public void logMetrics() {
+        logger.info("Кэш ответов: попаданий {}, промахов {}", hits.sum(), misses.sum());
+    }
+
+    /**
+     * Закэшированный ответ.
+     *
+     * @param version  версия данных ответа
+     * @param response ответ
+     */
+    private record Entry(long version, Response response) {
+    }
+}
@@ -1,27 +1,50 @@
 package by.mrtorex.businessshark.server.network;
 
 import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.repositories.TableVersion;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Основной класс сервера, отвечающий за приём подключений клиентов, мониторинг активности и подключение к БД.
  */
 public class Server {
     private static final Logger logger = LogManager.getLogger(Server.class);
+    private static final int IDLE_WHEEL_SIZE = 512;
+    private static final long CLIENT_TERMINATION_TIMEOUT = 2000;
     private static volatile int clientCount = 0;
     private static volatile long lastClientConnectedTime = System.currentTimeMillis();
 
-    private static ServerSocket serverSocket;
+    private static final List<ServerSocketChannel> serverChannels = new ArrayList<>();
+    private static final LongAdder acceptedConnections = new LongAdder();
+    private static long lastAcceptedCount;
     private static ExecutorService clientExecutor;
+    private static RequestScheduler requestScheduler;
+    private static IdleConnectionReaper idleConnectionReaper;
+    private static RateLimiter rateLimiter;
+    private static final ResponseCache responseCache = new ResponseCache();
+    private static SessionRegistry sessionRegistry;
+    private static ReadYourWrites readYourWrites;
+    private static RequestDispatcher requestDispatcher;
+    private static HttpGateway httpGateway;
     private static ScheduledExecutorService monitorExecutor;
+    private static final Set<ClientThread> activeClients = ConcurrentHashMap.newKeySet();
+    private static long drainTimeout;
     private static volatile boolean running = true;
 
     /**
@@ -38,44 +61,190 @@ public class Server {
     private static void startServer() {
         ResourceBundle bundle = ResourceBundle.getBundle("server");
         int serverPort;
+        int workerThreads;
+        long priorityAging;
+        int schedulerQuantum;
+        int clientQueueDepth;
+        long idleTimeout;
+        long idleCheckTick;
+        long sessionTtl;
+        long sessionSweepInterval;
+        String adminRole;
+        boolean sessionRequired;
+        long readYourWritesWindow;
+        long cacheMaxStaleness;
+        Path exportDirectory;
+        int maxRequestSize;
+        int acceptorThreads;
+        int acceptBacklog;
+        boolean httpEnabled;
+        int httpPort;
 
         try {
             serverPort = Integer.parseInt(bundle.getString("SERVER_PORT"));
-        } catch (NumberFormatException e) {
-            logger.error("Неверный формат порта сервера в конфигурационном файле", e);
+            acceptorThreads = Integer.parseInt(bundle.getString("ACCEPTOR_THREADS"));
+            acceptBacklog = Integer.parseInt(bundle.getString("ACCEPT_BACKLOG"));
+            httpEnabled = Boolean.parseBoolean(bundle.getString("HTTP_ENABLED"));
+            httpPort = Integer.parseInt(bundle.getString("HTTP_PORT"));
+            workerThreads = Integer.parseInt(bundle.getString("WORKER_THREADS"));
+            priorityAging = Long.parseLong(bundle.getString("PRIORITY_AGING"));
+            schedulerQuantum = Integer.parseInt(bundle.getString("SCHEDULER_QUANTUM"));
+            clientQueueDepth = Integer.parseInt(bundle.getString("CLIENT_QUEUE_DEPTH"));
+            idleTimeout = Long.parseLong(bundle.getString("IDLE_TIMEOUT"));
+            idleCheckTick = Long.parseLong(bundle.getString("IDLE_CHECK_TICK"));
+            drainTimeout = Long.parseLong(bundle.getString("SHUTDOWN_DRAIN_TIMEOUT"));
+            sessionTtl = Long.parseLong(bundle.getString("SESSION_TTL"));
+            sessionSweepInterval = Long.parseLong(bundle.getString("SESSION_SWEEP_INTERVAL"));
+            adminRole = bundle.getString("ADMIN_ROLE").trim();
+            sessionRequired = Boolean.parseBoolean(bundle.getString("SESSION_REQUIRED").trim());
+            readYourWritesWindow = Long.parseLong(bundle.getString("READ_YOUR_WRITES_WINDOW"));
+            cacheMaxStaleness = Long.parseLong(bundle.getString("CACHE_MAX_STALENESS"));
+            exportDirectory = Path.of(bundle.getString("EXPORT_DIRECTORY"));
+            maxRequestSize = Integer.parseInt(bundle.getString("MAX_REQUEST_SIZE"));
+            rateLimiter = new RateLimiter(bundle);
+        } catch (IllegalArgumentException e) {
+            logger.error("Неверный формат параметров сервера в конфигурационном файле", e);
             throw new IllegalStateException("Невозможно запустить сервер");
         }
 
         clientExecutor = Executors.newCachedThreadPool();
+        requestScheduler = new RequestScheduler(workerThreads, priorityAging, schedulerQuantum, clientQueueDepth);
+        SessionConfig.reserveConnections(workerThreads);
+        TableVersion.expireAfter(cacheMaxStaleness);
+        idleConnectionReaper = new IdleConnectionReaper(idleTimeout, idleCheckTick, IDLE_WHEEL_SIZE);
+        sessionRegistry = new SessionRegistry(sessionTtl, sessionSweepInterval, adminRole, sessionRequired);
+        readYourWrites = new ReadYourWrites(readYourWritesWindow);
+        requestDispatcher = new RequestDispatcher(responseCache, sessionRegistry, readYourWrites, exportDirectory,
+                maxRequestSize);
         monitorExecutor = Executors.newSingleThreadScheduledExecutor();
 
         try {
-            serverSocket = new ServerSocket(serverPort);
-            logger.info("Сервер запущен на порте {}", serverPort);
+            List<Thread> acceptors = openAcceptors(serverPort, acceptorThreads, acceptBacklog);
+            logger.info("Сервер запущен на порте {}: потоков приёма {}, очередь подключений {}",
+                    serverPort, acceptors.size(), acceptBacklog);
+            if (httpEnabled) {
+                httpGateway = new HttpGateway(httpPort, acceptBacklog, requestDispatcher, requestScheduler, rateLimiter,
+                        sessionRegistry, maxRequestSize);
+            }
 
             startMonitoring();
             connectToDatabase();
 
-            while (running) {
-                try {
-                    Socket client = serverSocket.accept();
-                    incrementClientCount();
-                    lastClientConnectedTime = System.currentTimeMillis();
-                    logger.info("Клиент подключился. Текущее количество клиентов: {}", clientCount);
-                    clientExecutor.submit(new ClientThread(client));
-                } catch (IOException e) {
-                    if (running) {
-                        logger.error("Ошибка при приёме клиента", e);
-                    }
-                }
+            for (Thread acceptor : acceptors) {
+                acceptor.join();
             }
         } catch (IOException e) {
             logger.error("Ошибка запуска сервера", e);
+        } catch (InterruptedException e) {
+            logger.warn("Ожидание потоков приёма подключений прервано");
+            Thread.currentThread().interrupt();
         } finally {
             shutdown();
         }
     }
 
+    /**
+     * Открывает серверные каналы и запускает потоки приёма подключений.
+     * Если платформа поддерживает SO_REUSEPORT, каждый поток получает собственный канал на том же порте
+     * и ядро распределяет входящие подключения между ними; иначе все потоки принимают из одного канала.
+     *
+     * @param port      порт сервера
+     * @param threads   количество потоков приёма
+     * @param backlog   длина очереди ожидающих подключений каждого канала
+     * @return запущенные потоки приёма
+     * @throws IOException если не удалось открыть канал
+     */
+    private static List<Thread> openAcceptors(int port, int threads, int backlog) throws IOException {
+        ServerSocketChannel first = openChannel(port, backlog);
+        boolean reusePort = first.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        if (!reusePort && threads > 1) {
+            logger.warn("SO_REUSEPORT не поддерживается, потоки приёма используют общий канал");
+        }
+
+        List<Thread> acceptors = new ArrayList<>();
+        for (int i = 0; i < Math.max(threads, 1); i++) {
+            ServerSocketChannel channel = i == 0 || !reusePort ? first : openChannel(port, backlog);
+            Thread acceptor = new Thread(() -> acceptLoop(channel), "Acceptor-" + (i + 1));
+            acceptors.add(acceptor);
+            acceptor.start();
+        }
+        return acceptors;
+    }
+
+    /**
+     * Открывает серверный канал на заданном порте.
+     *
+     * @param port    порт сервера
+     * @param backlog длина очереди ожидающих подключений
+     * @return открытый канал
+     * @throws IOException если не удалось открыть канал
+     */
+    private static ServerSocketChannel openChannel(int port, int backlog) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        synchronized (serverChannels) {
+            serverChannels.add(channel);
+        }
+        if (channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(port), backlog);
+        return channel;
+    }
+
+    /**
+     * Цикл потока приёма подключений.
+     *
+     * @param channel серверный канал
+     */
+    private static void acceptLoop(ServerSocketChannel channel) {
+        while (running) {
+            try {
+                acceptClient(channel.accept().socket());
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Ошибка при приёме клиента", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Регистрирует принятое подключение и запускает поток его обработки.
+     *
+     * @param client сокет клиента
+     */
+    private static void acceptClient(Socket client) {
+        acceptedConnections.increment();
+        incrementClientCount();
+        lastClientConnectedTime = System.currentTimeMillis();
+        logger.info("Клиент подключился. Текущее количество клиентов: {}", clientCount);
+        ClientThread clientThread;
+        try {
+            clientThread = new ClientThread(client, requestScheduler, idleConnectionReaper,
+                    rateLimiter, requestDispatcher);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка инициализации клиентского потока, соединение закрывается", e);
+            try {
+                client.close();
+            } catch (IOException closeException) {
+                logger.warn("Ошибка при закрытии клиентского соединения", closeException);
+            }
+            decrementClientCount();
+            return;
+        }
+        activeClients.add(clientThread);
+        clientExecutor.submit(() -> {
+            try {
+                clientThread.run();
+            } finally {
+                activeClients.remove(clientThread);
+            }
+        });
+    }
+
     /**
      * Запускает мониторинг подключений и завершает сервер при длительном отсутствии клиентов.
      */
@@ -98,7 +267,21 @@ public class Server {
                 logger.info("Нет подключенных клиентов в течение {} мс. Завершение сервера.", shutdownTime);
                 shutdown();
             } else {
-                logger.info("Текущее количество клиентов: {}", clientCount);
+                long accepted = acceptedConnections.sum();
+                double acceptRate = (accepted - lastAcceptedCount) * 1000.0 / monitoringInterval;
+                lastAcceptedCount = accepted;
+                logger.info("Текущее количество клиентов: {}, запросов в очереди: {}, открытых сессий: {}",
+                        clientCount, requestScheduler.getQueueSize(), sessionRegistry.size());
+                logger.info("Принято подключений: {}, скорость приёма: {} в секунду",
+                        accepted, String.format("%.1f", acceptRate));
+                requestScheduler.logClientMetrics();
+                responseCache.logMetrics();
+                requestDispatcher.logOperationMetrics();
+                rateLimiter.evictIdleBuckets();
+                if (httpGateway != null) {
+                    httpGateway.evictIdleClients();
+                }
+                readYourWrites.evictExpired();
             }
         }, 0, monitoringInterval, TimeUnit.MILLISECONDS);
     }
@@ -138,7 +321,10 @@ public class Server {
     }
 
     /**
-     * Корректное завершение всех ресурсов: сокета, потоков и планировщиков.
+     * Корректное завершение работы сервера с фазой дренирования:
+     * прекращается приём подключений, новые запросы получают ответ о необходимости переподключения,
+     * уже принятые запросы дообрабатываются в пределах отведённого времени, после чего
+     * закрываются клиентские соединения, планировщики и фабрика сессий Hibernate.
      */
     private static synchronized void shutdown() {
         if (!running) return;
@@ -146,25 +332,71 @@ public class Server {
         running = false;
         logger.info("Начинается завершение работы сервера...");
 
-        try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-                logger.info("Серверный сокет закрыт");
+        synchronized (serverChannels) {
+            for (ServerSocketChannel channel : serverChannels) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Ошибка при закрытии серверного канала", e);
+                }
             }
-        } catch (IOException e) {
-            logger.warn("Ошибка при закрытии серверного сокета", e);
+        }
+        logger.info("Серверные каналы закрыты, приём подключений прекращён");
+
+        if (httpGateway != null) {
+            httpGateway.stop(drainTimeout);
         }
 
         if (monitorExecutor != null && !monitorExecutor.isShutdown()) {
-            monitorExecutor.shutdownNow();
+            monitorExecutor.shutdown();
             logger.info("Мониторинг остановлен");
         }
 
+        if (requestScheduler != null) {
+            try {
+                logger.info("Ожидание завершения принятых запросов (не более {} мс)...", drainTimeout);
+                if (requestScheduler.drain(drainTimeout)) {
+                    logger.info("Все принятые запросы обработаны");
+                } else {
+                    logger.warn("Не все запросы обработаны за {} мс", drainTimeout);
+                }
+            } catch (InterruptedException e) {
+                logger.warn("Ожидание завершения запросов прервано");
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (ClientThread clientThread : activeClients) {
+            clientThread.disconnect();
+        }
+
         if (clientExecutor != null && !clientExecutor.isShutdown()) {
-            clientExecutor.shutdownNow();
+            clientExecutor.shutdown();
+            try {
+                if (!clientExecutor.awaitTermination(CLIENT_TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    clientExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                clientExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
             logger.info("Потоки клиентов завершены");
         }
 
+        if (requestScheduler != null) {
+            requestScheduler.shutdownNow();
+        }
+
+        if (idleConnectionReaper != null) {
+            idleConnectionReaper.stop();
+        }
+
+        if (sessionRegistry != null) {
+            sessionRegistry.stop();
+        }
+
+        SessionConfig.shutdownIfInitialized();
+
         logger.info("Сервер завершил работу.");
     }
 }
@@ -0,0 +1,225 @@
+package by.mrtorex.businessshark.server.network;
+
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.model.entities.User;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таблица сессий пользователей.
+ * При входе пользователю выдаётся непрозрачный токен, по которому последующие запросы
+ * определяют вызывающего пользователя без обращения к базе данных. Срок действия сессии
+ * продлевается при каждом обращении; истёкшие сессии удаляются фоновой задачей.
+ * <p>
+ * Операции над данными конкретного пользователя проверяют по сессии, что вызывающий — сам этот пользователь
+ * или администратор (см. {@link #authorize(String, int)}); идентификатору пользователя из данных запроса
+ * сервер не доверяет. Операции администратора, например массовый импорт и выгрузка, требуют сессии
+ * администратора (см. {@link #requireAdmin(String)}).
+ */
+public class SessionRegistry {
+    private static final Logger logger = LogManager.getLogger(SessionRegistry.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Map<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final String adminRole;
+    private final boolean sessionRequired;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Создаёт таблицу сессий и запускает удаление истёкших сессий.
+     *
+     * @param ttlMillis           время жизни сессии без обращений, мс
+     * @param sweepIntervalMillis интервал удаления истёкших сессий, мс
+     * @param adminRole           имя роли, которой разрешены операции над данными других пользователей
+     * @param sessionRequired     обязателен ли токен сессии для операций над данными пользователя;
+     *                            false оставляет прежним клиентам доступ без токена
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public SessionRegistry(long ttlMillis, long sweepIntervalMillis, String adminRole, boolean sessionRequired) {
+        if (ttlMillis <= 0 || sweepIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Параметры сессий должны быть положительными");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.adminRole = adminRole;
+        this.sessionRequired = sessionRequired;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Session-Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Таблица сессий запущена: время жизни {} мс, сессия обязательна: {}", ttlMillis, sessionRequired);
+    }
+
+    /**
+     * Открывает сессию для пользователя, прошедшего аутентификацию.
+     *
+     * @param user пользователь
+     * @return токен сессии
+     */
+    public String open(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = encoder.encodeToString(bytes);
+        String role = user.getRole() == null ? null : user.getRole().getName();
+        sessions.put(token, new UserSession(user.getId(), user.getUsername(), role,
+                role != null && role.equals(adminRole), System.nanoTime() + ttlNanos));
+        logger.info("Открыта сессия пользователя {}", user.getUsername());
+        return token;
+    }
+
+    /**
+     * Определяет пользователя по токену и продлевает сессию.
+     *
+     * @param token токен сессии, может быть null
+     * @return сессия или null, если токен отсутствует, неизвестен или истёк
+     */
+    public UserSession resolve(String token) {
+        if (token == null) return null;
+        UserSession session = sessions.get(token);
+        if (session == null) return null;
+        long now = System.nanoTime();
+        if (session.expiresAt - now <= 0) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.expiresAt = now + ttlNanos;
+        return session;
+    }
+
+    /**
+     * Проверяет, что вызывающий вправе выполнить операцию над данными пользователя:
+     * сессия принадлежит этому пользователю или администратору.
+     *
+     * @param token  токен сессии из запроса, может быть null
+     * @param userId идентификатор пользователя из данных запроса
+     * @return сессия вызывающего или null, если токен не передан и сессия не обязательна
+     * @throws ResponseException если сессия обязательна и не передана, недействительна
+     *                           или принадлежит другому пользователю без прав администратора
+     */
+    public UserSession authorize(String token, int userId) {
+        if (token == null && !sessionRequired) {
+            return null;
+        }
+        UserSession session = resolve(token);
+        if (session == null) {
+            throw new ResponseException("Сессия недействительна. Требуется повторный вход.");
+        }
+        if (session.userId != userId && !session.isAdmin()) {
+            logger.warn("Пользователь {} запросил операцию над данными пользователя с ID {}",
+                    session.username, userId);
+            throw new ResponseException("Недостаточно прав для операции над данными другого пользователя");
+        }
+        return session;
+    }
+
+    /**
+     * Проверяет, что вызывающий — администратор. Токен требуется всегда, независимо от того,
+     * обязательна ли сессия для операций над данными пользователя.
+     *
+     * @param token токен сессии из запроса, может быть null
+     * @return сессия администратора
+     * @throws ResponseException если сессия не передана, недействительна или принадлежит не администратору
+     */
+    public UserSession requireAdmin(String token) {
+        UserSession session = resolve(token);
+        if (session == null) {
+            throw new ResponseException("Операция доступна только администратору. Требуется вход.");
+        }
+        if (!session.isAdmin()) {
+            logger.warn("Пользователь {} запросил операцию администратора", session.username);
+            throw new ResponseException("Операция доступна только администратору");
+        }
+        return session;
+    }
+
+    /**
+     * Закрывает сессию.
+     *
+     * @param token токен сессии, может быть null
+     */
+    public void revoke(String token) {
+        if (token == null) return;
+        UserSession session = sessions.remove(token);
+        if (session != null) {
+            logger.info("Закрыта сессия пользователя {}", session.getUsername());
+        }
+    }
+
+    /**
+     * Закрывает все сессии пользователя, например после изменения или удаления его данных.
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void revokeUser(int userId) {
+        if (sessions.values().removeIf(session -> session.userId == userId)) {
+            logger.info("Закрыты сессии пользователя с ID {}", userId);
+        }
+    }
+
+    /**
+     * Возвращает количество открытых сессий.
+     *
+     * @return количество сессий
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Останавливает удаление истёкших сессий.
+     */
+    public void stop() {
+        sweeper.shutdownNow();
+        logger.info("Таблица сессий остановлена");
+    }
+
+    /**
+     * Удаляет истёкшие сессии.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> session.expiresAt - now <= 0);
+        int removed = before - sessions.size();
+        if (removed > 0) {
+            logger.info("Удалено истёкших сессий: {}", removed);
+        }
+    }
+
+    /**
+     * Сессия пользователя.
+     */
+    @Getter
+    public static final class UserSession {
+        private final int userId;
+        private final String username;
+        private final String role;
+        private final boolean admin;
+        @Getter(AccessLevel.NONE)
+        private volatile long expiresAt;
+
+        private UserSession(int userId, String username, String role, boolean admin, long expiresAt) {
+            this.userId = userId;
+            this.username = username;
+            this.role = role;
+            this.admin = admin;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.utils.CancellationToken;
+import by.mrtorex.businessshark.server.utils.Deadline;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import org.postgresql.PGConnection;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DAO массового импорта каталога акций и компаний.
+ * CSV с колонками {@code ticket,price,amount,company} (первая строка — заголовок, компания может быть пустой)
+ * передаётся потоком командой {@code COPY} во временную таблицу и затем переносится в таблицы
+ * {@code Stocks}, {@code Companies} и {@code Company_Stock} тремя запросами в одной транзакции.
+ * Существующие акции обновляются по тикеру, существующие компании и привязки акций не изменяются;
+ * при повторе тикера в файле действует последняя строка.
+ */
+public class CatalogDAO {
+    private static final Logger logger = LogManager.getLogger(CatalogDAO.class);
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE catalog_staging (
+                line    BIGSERIAL,
+                ticket  VARCHAR(5)       NOT NULL,
+                price   DOUBLE PRECISION NOT NULL,
+                amount  INTEGER          NOT NULL,
+                company VARCHAR(50)
+            ) ON COMMIT DROP
+            """;
+    private static final String COPY_STAGING =
+            "COPY catalog_staging (ticket, price, amount, company) FROM STDIN WITH (FORMAT csv, HEADER true)";
+    private static final String MERGE_STOCKS = """
+            INSERT INTO Stocks (ticket, price, amount, version)
+            SELECT DISTINCT ON (ticket) ticket, price, amount, 0 FROM catalog_staging ORDER BY ticket, line DESC
+            ON CONFLICT (ticket) DO UPDATE
+                SET price = EXCLUDED.price, amount = EXCLUDED.amount, version = Stocks.version + 1
+                WHERE (Stocks.price, Stocks.amount) IS DISTINCT FROM (EXCLUDED.price, EXCLUDED.amount)
+            """;
+    private static final String MERGE_COMPANIES = """
+            INSERT INTO Companies (name, version)
+            SELECT DISTINCT company, 0 FROM catalog_staging WHERE company IS NOT NULL
+            ON CONFLICT (name) DO NOTHING
+            """;
+    private static final String MERGE_LINKS = """
+            INSERT INTO Company_Stock (company_id, stock_id)
+            SELECT c.id, s.id
+            FROM (SELECT DISTINCT ON (ticket) ticket, company FROM catalog_staging ORDER BY ticket, line DESC) i
+            JOIN Companies c ON c.name = i.company
+            JOIN Stocks s ON s.ticket = i.ticket
+            ON CONFLICT DO NOTHING
+            """;
+
+    private final SessionFactory sessionFactory = SessionConfig.getInstance().getSessionFactory();
+
+    /**
+     * Импортирует каталог из CSV.
+     * Чтение CSV прерывается при отмене запроса или истечении его времени выполнения;
+     * при любой ошибке транзакция откатывается целиком.
+     *
+     * @param csv CSV каталога
+     * @return число прочитанных строк и изменённых записей
+     * @throws UncheckedIOException если CSV не удалось прочитать
+     * @throws RuntimeException     при ошибке формата CSV или работы с базой
+     */
+    public ImportCounts importCsv(Reader csv) {
+        ImportCounts counts;
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                counts = session.doReturningWork(connection -> copyAndMerge(connection, csv));
+                tx.commit();
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (tx.isActive()) tx.rollback();
+                logger.error("Ошибка импорта каталога", e);
+                throw e;
+            }
+        }
+
+        TableVersion.STOCKS.bump();
+        TableVersion.COMPANIES.bump();
+        TableVersion.COMPANY_STOCK.bump();
+        UnassignedStocks.invalidate();
+        logger.info("Каталог импортирован: {}", counts);
+        return counts;
+    }
+
+    private static ImportCounts copyAndMerge(Connection connection, Reader csv) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+            long rows;
+            try {
+                rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGING, new InterruptibleReader(csv));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка чтения CSV каталога", e);
+            }
+            statement.execute("ANALYZE catalog_staging");
+
+            int stocks = statement.executeUpdate(MERGE_STOCKS);
+            int companies = statement.executeUpdate(MERGE_COMPANIES);
+            int links = statement.executeUpdate(MERGE_LINKS);
+            return new ImportCounts(rows, stocks, companies, links);
+        }
+    }
+
+    /**
+     * Результат импорта каталога.
+     *
+     * @param rows      прочитано строк CSV
+     * @param stocks    добавлено или изменено акций
+     * @param companies добавлено компаний
+     * @param links     добавлено привязок акций к компаниям
+     */
+    public record ImportCounts(long rows, int stocks, int companies, int links) {
+    }
+
+    /**
+     * Поток чтения, проверяющий перед каждым чтением, не отменён ли запрос и не истекло ли его время.
+     */
+    private static final class InterruptibleReader extends FilterReader {
+        InterruptibleReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            CancellationToken.check();
+            Deadline.check();
+            return super.read(buffer, offset, length);
+        }
+    }
+}
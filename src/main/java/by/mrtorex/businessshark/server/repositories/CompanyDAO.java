@@ -17,6 +17,7 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO-реализация для работы с сущностями компаний.
@@ -38,17 +39,22 @@ public class CompanyDAO implements DAO<Company> {
     @Override
     public void save(Company obj) {
         executeTransaction(sessionFactory, Session::persist, obj);
+        TableVersion.COMPANIES.bump();
         logger.info("Компания сохранена: {}", obj.getName());
     }
 
     /**
-     * Обновляет информацию о компании в базе данных.
+     * Обновляет информацию о компании в базе данных одним условным запросом (см. {@link VersionedUpdate}).
      *
      * @param obj объект компании
+     * @throws RuntimeException при ошибке работы с базой, в том числе если компания не существует
+     *                          или изменена другим запросом ({@link VersionedUpdate#isStale(Throwable)})
      */
     @Override
     public void update(Company obj) {
-        executeTransaction(sessionFactory, Session::merge, obj);
+        executeTransaction(sessionFactory, (session, company) -> VersionedUpdate.execute(session, Company.class,
+                company.getId(), company.getVersion(), Map.of("name", company.getName())), obj);
+        TableVersion.COMPANIES.bump();
         logger.info("Компания обновлена: {}", obj.getName());
     }
 
@@ -61,6 +67,9 @@ public class CompanyDAO implements DAO<Company> {
     public void delete(Company company) {
         executeTransaction(sessionFactory, (session, c) ->
                 session.remove(session.contains(c) ? c : session.merge(c)), company);
+        TableVersion.COMPANIES.bump();
+        TableVersion.COMPANY_STOCK.bump();
+        UnassignedStocks.invalidate();
         logger.info("Компания удалена: {}", company.getName());
     }
 
@@ -71,7 +80,7 @@ public class CompanyDAO implements DAO<Company> {
      * @return объект Company или null
      */
     public Company findById(int id) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             return session.get(Company.class, id);
         } catch (Exception e) {
             logger.error("Ошибка при поиске компании по ID: {}", id, e);
@@ -83,17 +92,18 @@ public class CompanyDAO implements DAO<Company> {
      * Возвращает список всех компаний.
      *
      * @return список компаний
+     * @throws RuntimeException при ошибке работы с базой
      */
     @Override
     public List<Company> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Company> cq = cb.createQuery(Company.class);
             cq.select(cq.from(Company.class));
-            return session.createQuery(cq).getResultList();
+            return StreamingQuery.list(session, QueryDeadline.apply(session.createQuery(cq)));
         } catch (Exception e) {
             logger.error("Ошибка при получении всех компаний", e);
-            return List.of();
+            throw e;
         }
     }
 
@@ -104,12 +114,12 @@ public class CompanyDAO implements DAO<Company> {
      * @return объект Company или null
      */
     public Company findByName(String name) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Company> cq = cb.createQuery(Company.class);
             Root<Company> root = cq.from(Company.class);
             cq.select(root).where(cb.equal(root.get("name"), name));
-            return session.createQuery(cq).uniqueResult();
+            return QueryDeadline.apply(session.createQuery(cq)).uniqueResult();
         } catch (Exception e) {
             logger.warn("Компания с именем '{}' не найдена", name);
             return null;
@@ -123,13 +133,13 @@ public class CompanyDAO implements DAO<Company> {
      * @return объект Company или null
      */
     public Company findByStockId(int stockId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = """
                 SELECT c.* FROM Companies c
                 JOIN Company_Stock cs ON c.id = cs.company_id
                 WHERE cs.stock_id = :stockId
             """;
-            NativeQuery<Company> query = session.createNativeQuery(sql, Company.class);
+            NativeQuery<Company> query = QueryDeadline.apply(session.createNativeQuery(sql, Company.class));
             query.setParameter("stockId", stockId);
             return query.uniqueResult();
         } catch (Exception e) {
@@ -155,6 +165,8 @@ public class CompanyDAO implements DAO<Company> {
                     .setParameter("stockId", stockId)
                     .executeUpdate();
         }, null);
+        TableVersion.COMPANY_STOCK.bump();
+        UnassignedStocks.remove(stockId);
         logger.info("Акция {} добавлена к компании {}", stockId, companyId);
     }
 
@@ -173,6 +185,8 @@ public class CompanyDAO implements DAO<Company> {
                     .setParameter("stockId", stockId)
                     .executeUpdate();
         }, null);
+        TableVersion.COMPANY_STOCK.bump();
+        UnassignedStocks.add(stockId);
         logger.info("Акция {} отвязана от компании", stockId);
     }
 
@@ -183,13 +197,13 @@ public class CompanyDAO implements DAO<Company> {
      * @return список акций
      */
     public List<Stock> getCompanyStocks(int companyId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = """
                 SELECT s.* FROM Stocks s
                 JOIN Company_Stock cs ON s.id = cs.stock_id
                 WHERE cs.company_id = :companyId
             """;
-            NativeQuery<Stock> query = session.createNativeQuery(sql, Stock.class);
+            NativeQuery<Stock> query = QueryDeadline.apply(session.createNativeQuery(sql, Stock.class));
             query.setParameter("companyId", companyId);
             return query.getResultList();
         } catch (Exception e) {
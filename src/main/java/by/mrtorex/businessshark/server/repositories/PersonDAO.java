@@ -15,7 +15,9 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO для работы с сущностью Person.
@@ -50,10 +52,12 @@ public class PersonDAO implements DAO<Person> {
     }
 
     /**
-     * Обновляет данные существующего человека.
+     * Обновляет данные существующего человека одним условным запросом (см. {@link VersionedUpdate}).
      *
      * @param obj объект Person с обновлёнными данными
      * @throws IllegalArgumentException если obj равен null
+     * @throws RuntimeException при ошибке работы с базой, в том числе если запись не существует
+     *                          или изменена другим запросом ({@link VersionedUpdate#isStale(Throwable)})
      */
     @Override
     public void update(Person obj) {
@@ -61,7 +65,7 @@ public class PersonDAO implements DAO<Person> {
             logger.error("Попытка обновить null объект Person");
             throw new IllegalArgumentException("Объект Person не может быть null");
         }
-        executeTransaction(sessionFactory, Session::merge, obj);
+        executeTransaction(sessionFactory, PersonDAO::updateVersioned, obj);
         logger.info("Обновлён объект Person с ID {}", obj.getId());
     }
 
@@ -95,7 +99,7 @@ public class PersonDAO implements DAO<Person> {
             logger.error("Некорректный ID для поиска Person: {}", id);
             throw new IllegalArgumentException("ID должен быть положительным числом");
         }
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             Person person = session.get(Person.class, id);
             if (person == null) {
                 logger.warn("Person с ID {} не найден", id);
@@ -116,13 +120,13 @@ public class PersonDAO implements DAO<Person> {
      */
     @Override
     public List<Person> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
             CriteriaQuery<Person> criteriaQuery = criteriaBuilder.createQuery(Person.class);
             Root<Person> root = criteriaQuery.from(Person.class);
             criteriaQuery.select(root);
-            Query<Person> query = session.createQuery(criteriaQuery);
-            List<Person> results = query.getResultList();
+            Query<Person> query = QueryDeadline.apply(session.createQuery(criteriaQuery));
+            List<Person> results = StreamingQuery.list(session, query);
             logger.info("Получен список всех Person, найдено {} записей", results.size());
             return results;
         } catch (Exception e) {
@@ -130,4 +134,18 @@ public class PersonDAO implements DAO<Person> {
             throw e;
         }
     }
+
+    /**
+     * Условно обновляет строку человека в текущей транзакции.
+     *
+     * @param session сессия с открытой транзакцией
+     * @param person  объект Person с обновлёнными данными
+     */
+    static void updateVersioned(Session session, Person person) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("firstName", person.getFirstName());
+        values.put("patronymic", person.getPatronymic());
+        values.put("lastName", person.getLastName());
+        VersionedUpdate.execute(session, Person.class, person.getId(), person.getVersion(), values);
+    }
 }
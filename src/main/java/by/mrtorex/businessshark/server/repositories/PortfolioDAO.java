@@ -1,6 +1,7 @@
 package by.mrtorex.businessshark.server.repositories;
 
 import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.model.entities.Company;
 import by.mrtorex.businessshark.server.model.entities.Stock;
 import by.mrtorex.businessshark.server.utils.Pair;
 
@@ -14,10 +15,12 @@ import org.hibernate.query.NativeQuery;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * DAO для работы с портфелем пользователя.
  * Предоставляет методы для управления акциями пользователя и их балансом.
+ * Асинхронные варианты методов выполняются в пуле потоков базы данных (см. {@link SessionConfig#supplyAsync}).
  */
 public class PortfolioDAO {
 
@@ -39,7 +42,7 @@ public class PortfolioDAO {
                 ON CONFLICT (user_id, stock_id) DO UPDATE SET amount = User_Stock.amount + :amount
             """;
             @SuppressWarnings({"deprecated", "deprecation"})
-            NativeQuery<?> query = session.createNativeQuery(sql);
+            NativeQuery<?> query = QueryDeadline.apply(session.createNativeQuery(sql));
             query.setParameter("userId", userId);
             query.setParameter("stockId", obj.getKey().getId());
             query.setParameter("amount", obj.getValue());
@@ -66,7 +69,7 @@ public class PortfolioDAO {
             if (newAmount <= 0) {
                 String sqlDelete = "DELETE FROM User_Stock WHERE user_id = :userId AND stock_id = :stockId";
                 @SuppressWarnings({"deprecated", "deprecation"})
-                NativeQuery<?> deleteQuery = session.createNativeQuery(sqlDelete);
+                NativeQuery<?> deleteQuery = QueryDeadline.apply(session.createNativeQuery(sqlDelete));
                 deleteQuery.setParameter("userId", userId);
                 deleteQuery.setParameter("stockId", obj.getKey().getId());
                 deleteQuery.executeUpdate();
@@ -74,7 +77,7 @@ public class PortfolioDAO {
             } else {
                 String sqlUpdate = "UPDATE User_Stock SET amount = :amount WHERE user_id = :userId AND stock_id = :stockId";
                 @SuppressWarnings({"deprecated", "deprecation"})
-                NativeQuery<?> updateQuery = session.createNativeQuery(sqlUpdate);
+                NativeQuery<?> updateQuery = QueryDeadline.apply(session.createNativeQuery(sqlUpdate));
                 updateQuery.setParameter("amount", newAmount);
                 updateQuery.setParameter("userId", userId);
                 updateQuery.setParameter("stockId", obj.getKey().getId());
@@ -94,7 +97,7 @@ public class PortfolioDAO {
         executeTransaction(session -> {
             String sql = "DELETE FROM User_Stock WHERE user_id = :userId AND stock_id = :stockId";
             @SuppressWarnings({"deprecated", "deprecation"})
-            NativeQuery<?> query = session.createNativeQuery(sql);
+            NativeQuery<?> query = QueryDeadline.apply(session.createNativeQuery(sql));
             query.setParameter("userId", userId);
             query.setParameter("stockId", stockId);
             query.executeUpdate();
@@ -110,14 +113,14 @@ public class PortfolioDAO {
      * @return объект {@link Pair} с акцией и количеством или null, если не найдено
      */
     public Pair<Stock, Integer> findByIds(int userId, int stockId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = """
                 SELECT s.id, s.ticket, s.price, s.amount, us.amount
                 FROM Stocks s
                 JOIN User_Stock us ON s.id = us.stock_id
                 WHERE us.user_id = :userId AND us.stock_id = :stockId
             """;
-            NativeQuery<Object[]> query = session.createNativeQuery(sql, Object[].class);
+            NativeQuery<Object[]> query = QueryDeadline.apply(session.createNativeQuery(sql, Object[].class));
             query.setParameter("userId", userId);
             query.setParameter("stockId", stockId);
             Object[] row = query.uniqueResult();
@@ -137,14 +140,14 @@ public class PortfolioDAO {
      * @return список объектов {@link Pair}, содержащих акции и их количество
      */
     public List<Pair<Stock, Integer>> findAllUserStocks(int userId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = """
                 SELECT s.id, s.ticket, s.price, s.amount, us.amount
                 FROM Stocks s
                 JOIN User_Stock us ON s.id = us.stock_id
                 WHERE us.user_id = :userId
             """;
-            NativeQuery<Object[]> query = session.createNativeQuery(sql, Object[].class);
+            NativeQuery<Object[]> query = QueryDeadline.apply(session.createNativeQuery(sql, Object[].class));
             query.setParameter("userId", userId);
             List<Object[]> rows = query.getResultList();
             if (rows == null || rows.isEmpty()) return Collections.emptyList();
@@ -156,6 +159,52 @@ public class PortfolioDAO {
         }
     }
 
+    /**
+     * Возвращает акции пользователя вместе с доступным количеством и компанией каждой акции одним запросом.
+     * Доступное количество считается группировкой по всем владельцам акций пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return позиции портфеля пользователя
+     */
+    public List<Position> findUserPositions(int userId) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
+            String sql = """
+                SELECT s.id, s.ticket, s.price, s.amount, us.amount,
+                       s.amount - COALESCE(held.total, 0), c.id, c.name, c.version
+                FROM User_Stock us
+                JOIN Stocks s ON s.id = us.stock_id
+                LEFT JOIN (
+                    SELECT stock_id, SUM(amount) AS total
+                    FROM User_Stock
+                    WHERE stock_id IN (SELECT stock_id FROM User_Stock WHERE user_id = :userId)
+                    GROUP BY stock_id
+                ) held ON held.stock_id = s.id
+                LEFT JOIN Company_Stock cs ON cs.stock_id = s.id
+                LEFT JOIN Companies c ON c.id = cs.company_id
+                WHERE us.user_id = :userId
+            """;
+            NativeQuery<Object[]> query = QueryDeadline.apply(session.createNativeQuery(sql, Object[].class));
+            query.setParameter("userId", userId);
+            List<Object[]> rows = query.getResultList();
+            if (rows == null || rows.isEmpty()) return Collections.emptyList();
+
+            return rows.stream().map(row -> {
+                Pair<Stock, Integer> holding = getStockIntegerPair(row);
+                Company company = null;
+                if (row[6] != null) {
+                    company = new Company();
+                    company.setId(((Number) row[6]).intValue());
+                    company.setName((String) row[7]);
+                    company.setVersion(((Number) row[8]).intValue());
+                }
+                return new Position(holding.getKey(), holding.getValue(), ((Number) row[5]).intValue(), company);
+            }).toList();
+        } catch (Exception e) {
+            logger.error("Ошибка получения позиций портфеля пользователя {}", userId, e);
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * Преобразует строку результата запроса в объект {@link Pair} с акцией и количеством.
      *
@@ -179,10 +228,10 @@ public class PortfolioDAO {
      * @return список объектов {@link Pair} с ID пользователя и ID акции
      */
     public List<Pair<Integer, Integer>> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = "SELECT user_id, stock_id FROM User_Stock";
-            NativeQuery<Object[]> query = session.createNativeQuery(sql, Object[].class);
-            List<Object[]> results = query.getResultList();
+            NativeQuery<Object[]> query = QueryDeadline.apply(session.createNativeQuery(sql, Object[].class));
+            List<Object[]> results = StreamingQuery.list(session, query);
             return results.stream()
                     .map(row -> new Pair<>(((Number) row[0]).intValue(), ((Number) row[1]).intValue()))
                     .toList();
@@ -199,10 +248,10 @@ public class PortfolioDAO {
      * @return баланс счета или -1.0 в случае ошибки
      */
     public Double getAccount(int userId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = "SELECT account FROM Accounts WHERE user_id = :userId";
             @SuppressWarnings({"deprecated", "deprecation"})
-            NativeQuery<?> query = session.createNativeQuery(sql);
+            NativeQuery<?> query = QueryDeadline.apply(session.createNativeQuery(sql));
             query.setParameter("userId", userId);
             Object result = query.uniqueResult();
 
@@ -229,7 +278,7 @@ public class PortfolioDAO {
                 ON CONFLICT (user_id) DO UPDATE SET account = :account
             """;
             @SuppressWarnings({"deprecated", "deprecation"})
-            NativeQuery<?> query = session.createNativeQuery(sql);
+            NativeQuery<?> query = QueryDeadline.apply(session.createNativeQuery(sql));
             query.setParameter("userId", userId);
             query.setParameter("account", Math.round(account * 100.0) / 100.0);
             query.executeUpdate();
@@ -244,7 +293,7 @@ public class PortfolioDAO {
      * @return доступное количество акций или 0 в случае ошибки
      */
     public int getAvailableAmount(int stockId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             String sql = """
                 SELECT s.amount - COALESCE(SUM(us.amount), 0) AS available_amount
                 FROM Stocks s
@@ -253,7 +302,7 @@ public class PortfolioDAO {
                 GROUP BY s.amount
             """;
             @SuppressWarnings({"deprecated", "deprecation"})
-            NativeQuery<?> query = session.createNativeQuery(sql);
+            NativeQuery<?> query = QueryDeadline.apply(session.createNativeQuery(sql));
             query.setParameter("stockId", stockId);
             Object result = query.uniqueResult();
 
@@ -266,6 +315,113 @@ public class PortfolioDAO {
         }
     }
 
+    /**
+     * Асинхронный вариант {@link #save(Pair, int)}.
+     *
+     * @param obj    объект {@link Pair}, содержащий акцию и количество
+     * @param userId идентификатор пользователя
+     * @return завершение сохранения
+     */
+    public CompletableFuture<Void> saveAsync(Pair<Stock, Integer> obj, int userId) {
+        return runAsync(() -> save(obj, userId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #update(Pair, int)}.
+     *
+     * @param obj    объект {@link Pair}, содержащий акцию и количество для вычитания
+     * @param userId идентификатор пользователя
+     * @return завершение обновления
+     */
+    public CompletableFuture<Void> updateAsync(Pair<Stock, Integer> obj, int userId) {
+        return runAsync(() -> update(obj, userId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #delete(int, int)}.
+     *
+     * @param userId  идентификатор пользователя
+     * @param stockId идентификатор акции
+     * @return завершение удаления
+     */
+    public CompletableFuture<Void> deleteAsync(int userId, int stockId) {
+        return runAsync(() -> delete(userId, stockId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #findByIds(int, int)}.
+     *
+     * @param userId  идентификатор пользователя
+     * @param stockId идентификатор акции
+     * @return будущий объект {@link Pair} с акцией и количеством или null, если не найдено
+     */
+    public CompletableFuture<Pair<Stock, Integer>> findByIdsAsync(int userId, int stockId) {
+        return SessionConfig.getInstance().supplyAsync(() -> findByIds(userId, stockId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #findAllUserStocks(int)}.
+     *
+     * @param userId идентификатор пользователя
+     * @return будущий список акций пользователя с их количеством
+     */
+    public CompletableFuture<List<Pair<Stock, Integer>>> findAllUserStocksAsync(int userId) {
+        return SessionConfig.getInstance().supplyAsync(() -> findAllUserStocks(userId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #findAll()}.
+     *
+     * @return будущий список пар ID пользователя и ID акции
+     */
+    public CompletableFuture<List<Pair<Integer, Integer>>> findAllAsync() {
+        return SessionConfig.getInstance().supplyAsync(this::findAll);
+    }
+
+    /**
+     * Асинхронный вариант {@link #getAccount(int)}.
+     *
+     * @param userId идентификатор пользователя
+     * @return будущий баланс счета или -1.0 в случае ошибки
+     */
+    public CompletableFuture<Double> getAccountAsync(int userId) {
+        return SessionConfig.getInstance().supplyAsync(() -> getAccount(userId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #setAccount(int, double)}.
+     *
+     * @param userId  идентификатор пользователя
+     * @param account новый баланс
+     * @return завершение обновления баланса
+     */
+    public CompletableFuture<Void> setAccountAsync(int userId, double account) {
+        return runAsync(() -> setAccount(userId, account));
+    }
+
+    /**
+     * Асинхронный вариант {@link #getAvailableAmount(int)}.
+     *
+     * @param stockId идентификатор акции
+     * @return будущее доступное количество акций или 0 в случае ошибки
+     */
+    public CompletableFuture<Integer> getAvailableAmountAsync(int stockId) {
+        return SessionConfig.getInstance().supplyAsync(() -> getAvailableAmount(stockId));
+    }
+
+    /**
+     * Выполняет действие без результата в пуле потоков базы данных.
+     *
+     * @param action действие с базой данных
+     * @return завершение действия
+     */
+    private CompletableFuture<Void> runAsync(Runnable action) {
+        return SessionConfig.getInstance().supplyAsync(() -> {
+            action.run();
+            return null;
+        });
+    }
+
     /**
      * Выполняет транзакцию с использованием предоставленного действия.
      *
@@ -274,6 +430,7 @@ public class PortfolioDAO {
     private void executeTransaction(TransactionConsumer action) {
         try (Session session = sessionFactory.openSession()) {
             Transaction tx = session.beginTransaction();
+            QueryDeadline.apply(session);
             action.accept(session);
             tx.commit();
         } catch (Exception e) {
@@ -294,4 +451,15 @@ public class PortfolioDAO {
          */
         void accept(Session session);
     }
-}
\ No newline at end of file
+
+    /**
+     * Акция в портфеле пользователя.
+     *
+     * @param stock           акция
+     * @param amount          количество акций у пользователя
+     * @param availableAmount количество акций, доступное для покупки
+     * @param company         компания, к которой привязана акция, или null
+     */
+    public record Position(Stock stock, int amount, int availableAmount, Company company) {
+    }
+}
@@ -0,0 +1,133 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.utils.CancellationToken;
+import by.mrtorex.businessshark.server.utils.Deadline;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import org.postgresql.PGConnection;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.LongConsumer;
+
+/**
+ * DAO массовой выгрузки портфелей и счетов пользователей.
+ * Строки выгружаются командой {@code COPY ... TO STDOUT} и записываются в поток вывода по мере получения,
+ * поэтому объём памяти не зависит от числа строк.
+ * <p>
+ * Выгрузка — CSV со строкой заголовка и колонками {@code user_id,account,stock_id,ticket,amount,price,value}:
+ * по строке на каждую акцию портфеля с ценой акции и стоимостью позиции; баланс счёта повторяется в каждой
+ * строке пользователя. Пользователь со счётом, но без акций, выгружается одной строкой с пустыми колонками акции.
+ */
+public class PortfolioExportDAO {
+    private static final Logger logger = LogManager.getLogger(PortfolioExportDAO.class);
+
+    private static final String COPY_PORTFOLIOS = """
+            COPY (
+                SELECT COALESCE(p.user_id, a.user_id) AS user_id, a.account,
+                       p.stock_id, p.ticket, p.amount, p.price, p.amount * p.price AS value
+                FROM (SELECT us.user_id, s.id AS stock_id, s.ticket, us.amount, s.price
+                      FROM User_Stock us JOIN Stocks s ON s.id = us.stock_id) p
+                FULL JOIN Accounts a ON a.user_id = p.user_id
+                ORDER BY 1, p.stock_id
+            ) TO STDOUT WITH (FORMAT csv, HEADER true)
+            """;
+
+    /**
+     * Выгружает портфели и счета пользователей.
+     * Выгрузка прерывается при отмене запроса или истечении его времени выполнения.
+     *
+     * @param out              поток вывода CSV
+     * @param progressInterval через сколько строк сообщать о ходе выгрузки
+     * @param progress         получатель числа выгруженных строк
+     * @return число выгруженных строк без заголовка
+     * @throws UncheckedIOException если не удалось записать в поток вывода
+     * @throws RuntimeException     при ошибке работы с базой
+     */
+    public long exportCsv(Writer out, long progressInterval, LongConsumer progress) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                long rows = session.doReturningWork(connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI()
+                                .copyOut(COPY_PORTFOLIOS, new ProgressWriter(out, progressInterval, progress));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Ошибка записи выгрузки портфелей", e);
+                    }
+                });
+                tx.commit();
+                logger.info("Выгружено строк портфелей: {}", rows);
+                return rows;
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (tx.isActive()) tx.rollback();
+                logger.error("Ошибка выгрузки портфелей", e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Поток записи, считающий строки выгрузки и проверяющий перед каждой записью,
+     * не отменён ли запрос и не истекло ли его время.
+     */
+    private static final class ProgressWriter extends FilterWriter {
+        private final long interval;
+        private final LongConsumer progress;
+        private long lines;
+
+        ProgressWriter(Writer out, long interval, LongConsumer progress) {
+            super(out);
+            this.interval = interval;
+            this.progress = progress;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            check();
+            super.write(c);
+            if (c == '\n') lineWritten();
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            check();
+            super.write(buffer, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') lineWritten();
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            check();
+            super.write(text, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                if (text.charAt(i) == '\n') lineWritten();
+            }
+        }
+
+        private void check() {
+            CancellationToken.check();
+            Deadline.check();
+        }
+
+        private void lineWritten() {
+            lines++;
+            // Первая строка — заголовок
+            if (lines > 1 && (lines - 1) % interval == 0) {
+                progress.accept(lines - 1);
+            }
+        }
+    }
+}
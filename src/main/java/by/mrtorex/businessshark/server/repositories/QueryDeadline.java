@@ -0,0 +1,69 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.exceptions.RequestTimeoutException;
+import by.mrtorex.businessshark.server.utils.Deadline;
+
+import org.hibernate.Session;
+import org.hibernate.query.CommonQueryContract;
+
+import java.sql.Statement;
+
+/**
+ * Перенос крайнего срока запроса клиента (см. {@link Deadline}) на запросы к базе данных.
+ * Запросы вне транзакций получают тайм-аут JDBC, транзакции — {@code statement_timeout} PostgreSQL,
+ * который действует и на операторы, формируемые Hibernate при сбросе сессии.
+ */
+public final class QueryDeadline {
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * Устанавливает запросу тайм-аут по оставшемуся времени запроса клиента.
+     * Тайм-аут JDBC задаётся в секундах, поэтому оставшееся время округляется вверх.
+     *
+     * @param query запрос Hibernate
+     * @param <Q>   тип запроса
+     * @return тот же запрос
+     * @throws RequestTimeoutException если срок уже истёк
+     */
+    public static <Q extends CommonQueryContract> Q apply(Q query) {
+        if (Deadline.isSet()) {
+            query.setTimeout((int) Math.ceil(remainingMillis() / 1000.0));
+        }
+        return query;
+    }
+
+    /**
+     * Ограничивает время выполнения операторов открытой транзакции оставшимся временем запроса клиента.
+     * Значение действует до завершения транзакции.
+     *
+     * @param session сессия с открытой транзакцией
+     * @throws RequestTimeoutException если срок уже истёк
+     */
+    public static void apply(Session session) {
+        if (Deadline.isSet()) {
+            // Hibernate не принимает SET как изменяющий запрос, поэтому команда выполняется через JDBC
+            long timeout = remainingMillis();
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET LOCAL statement_timeout = " + timeout);
+                }
+            });
+        }
+    }
+
+    /**
+     * Возвращает оставшееся время запроса клиента. Нулевой тайм-аут означает его отсутствие,
+     * поэтому истёкший срок приводит к исключению, а не к нулевому значению.
+     *
+     * @return оставшееся время, мс, не меньше 1
+     */
+    private static long remainingMillis() {
+        long remaining = Deadline.remainingMillis();
+        if (remaining <= 0) {
+            throw new RequestTimeoutException();
+        }
+        return remaining;
+    }
+}
@@ -48,12 +48,12 @@ public class RoleDAO implements DAO<Role> {
             throw new IllegalArgumentException("Имя роли не может быть пустым");
         }
 
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Role> cq = cb.createQuery(Role.class);
             Root<Role> root = cq.from(Role.class);
             cq.select(root).where(cb.equal(root.get("name"), name));
-            Query<Role> query = session.createQuery(cq);
+            Query<Role> query = QueryDeadline.apply(session.createQuery(cq));
             Role role = query.uniqueResult();
             if (role == null) {
                 logger.info("Роль с именем '{}' не найдена", name);
@@ -77,6 +77,7 @@ public class RoleDAO implements DAO<Role> {
     public void save(Role role) {
         Objects.requireNonNull(role, "Роль не может быть null");
         executeTransaction(session -> session.persist(role));
+        TableVersion.ROLES.bump();
         logger.info("Роль сохранена: {}", role);
     }
 
@@ -90,6 +91,7 @@ public class RoleDAO implements DAO<Role> {
     public void update(Role role) {
         Objects.requireNonNull(role, "Роль не может быть null");
         executeTransaction(session -> session.merge(role));
+        TableVersion.ROLES.bump();
         logger.info("Роль обновлена: {}", role);
     }
 
@@ -106,6 +108,7 @@ public class RoleDAO implements DAO<Role> {
             Role managedRole = session.contains(role) ? role : session.merge(role);
             session.remove(managedRole);
         });
+        TableVersion.ROLES.bump();
         logger.info("Роль удалена: {}", role);
     }
 
@@ -122,7 +125,7 @@ public class RoleDAO implements DAO<Role> {
             logger.error("Неверный ID роли: {}", id);
             throw new IllegalArgumentException("ID роли должен быть положительным числом");
         }
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             Role role = session.get(Role.class, id);
             if (role == null) {
                 logger.info("Роль с ID {} не найдена", id);
@@ -143,13 +146,13 @@ public class RoleDAO implements DAO<Role> {
      */
     @Override
     public List<Role> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Role> cq = cb.createQuery(Role.class);
             Root<Role> root = cq.from(Role.class);
             cq.select(root);
-            Query<Role> query = session.createQuery(cq);
-            List<Role> roles = query.getResultList();
+            Query<Role> query = QueryDeadline.apply(session.createQuery(cq));
+            List<Role> roles = StreamingQuery.list(session, query);
             logger.info("Найдено ролей: {}", roles.size());
             return roles;
         } catch (Exception e) {
@@ -165,15 +168,18 @@ public class RoleDAO implements DAO<Role> {
      */
     @SuppressWarnings("DuplicatedCode")
     private void executeTransaction(SessionAction action) {
-        Transaction tx = null;
         try (Session session = sessionFactory.openSession()) {
-            tx = session.beginTransaction();
-            action.execute(session);
-            tx.commit();
-        } catch (Exception e) {
-            if (tx != null) tx.rollback();
-            logger.error("Ошибка в транзакции", e);
-            throw e;
+            Transaction tx = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                action.execute(session);
+                tx.commit();
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (tx.isActive()) tx.rollback();
+                logger.error("Ошибка в транзакции", e);
+                throw e;
+            }
         }
     }
 
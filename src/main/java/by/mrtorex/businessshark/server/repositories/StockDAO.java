@@ -3,6 +3,7 @@ package by.mrtorex.businessshark.server.repositories;
 import by.mrtorex.businessshark.server.config.SessionConfig;
 import by.mrtorex.businessshark.server.interfaces.DAO;
 import by.mrtorex.businessshark.server.model.entities.Stock;
+import by.mrtorex.businessshark.server.utils.Deadline;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -16,7 +17,10 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -47,20 +51,29 @@ public class StockDAO implements DAO<Stock> {
     public void save(Stock stock) {
         Objects.requireNonNull(stock, "Акция не может быть null");
         executeTransaction(session -> session.persist(stock));
+        TableVersion.STOCKS.bump();
+        UnassignedStocks.add(stock.getId());
         logger.info("Акция сохранена: {}", stock);
     }
 
     /**
-     * Обновляет существующую акцию в базе данных.
+     * Обновляет существующую акцию в базе данных одним условным запросом (см. {@link VersionedUpdate}).
      *
      * @param stock объект акции, не может быть null
      * @throws NullPointerException если stock равен null
+     * @throws org.hibernate.StaleObjectStateException если акция не существует или изменена другим запросом
      * @throws RuntimeException при ошибке работы с базой
      */
     @Override
     public void update(Stock stock) {
         Objects.requireNonNull(stock, "Акция не может быть null");
-        executeTransaction(session -> session.merge(stock));
+        Map<String, Object> values = new HashMap<>();
+        values.put("ticket", stock.getTicket());
+        values.put("price", stock.getPrice());
+        values.put("amount", stock.getAmount());
+        executeTransaction(session ->
+                VersionedUpdate.execute(session, Stock.class, stock.getId(), stock.getVersion(), values));
+        TableVersion.STOCKS.bump();
         logger.info("Акция обновлена: {}", stock);
     }
 
@@ -78,6 +91,9 @@ public class StockDAO implements DAO<Stock> {
             Stock managedStock = session.contains(stock) ? stock : session.merge(stock);
             session.remove(managedStock);
         });
+        TableVersion.STOCKS.bump();
+        TableVersion.COMPANY_STOCK.bump();
+        UnassignedStocks.remove(stock.getId());
         logger.info("Акция удалена: {}", stock);
     }
 
@@ -94,7 +110,7 @@ public class StockDAO implements DAO<Stock> {
             logger.error("Неверный ID акции: {}", id);
             throw new IllegalArgumentException("ID акции должен быть положительным числом");
         }
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             Stock stock = session.get(Stock.class, id);
             if (stock == null) {
                 logger.info("Акция с ID {} не найдена", id);
@@ -116,13 +132,13 @@ public class StockDAO implements DAO<Stock> {
      */
     @Override
     public List<Stock> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Stock> cq = cb.createQuery(Stock.class);
             Root<Stock> root = cq.from(Stock.class);
             cq.select(root);
-            Query<Stock> query = session.createQuery(cq);
-            List<Stock> stocks = query.getResultList();
+            Query<Stock> query = QueryDeadline.apply(session.createQuery(cq));
+            List<Stock> stocks = StreamingQuery.list(session, query);
             logger.info("Найдено акций: {}", stocks.size());
             return stocks;
         } catch (Exception e) {
@@ -133,28 +149,40 @@ public class StockDAO implements DAO<Stock> {
 
     /**
      * Получение списка акций, которые не связаны ни с одной компанией.
+     * Идентификаторы берутся из поддерживаемого множества {@link UnassignedStocks}, и акции загружаются
+     * по первичному ключу; пока множество не загружено, акции выбираются запросом {@code NOT EXISTS}
+     * к основному серверу, результат которого загружает множество.
      *
-     * @return список акций без компаний, пустой список при ошибке
+     * @return список акций без компаний
+     * @throws RuntimeException при ошибке работы с базой
      */
     public List<Stock> findAllWithNoCompany() {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            String sql = """
-                    SELECT * FROM public.Stocks
-                    WHERE id NOT IN (SELECT stock_id FROM public.Company_Stock)
-                    """;
-
-            List<Stock> unassignedStocks = session
-                    .createNativeQuery(sql, Stock.class)
-                    .getResultList();
-
-            session.getTransaction().commit();
+        int[] unassignedIds = UnassignedStocks.snapshot();
+        try (Session session = unassignedIds != null
+                ? SessionConfig.getInstance().openReadSession()
+                : sessionFactory.openSession()) {
+            List<Stock> unassignedStocks;
+            if (unassignedIds != null) {
+                Deadline.check();
+                unassignedStocks = session.byMultipleIds(Stock.class)
+                        .multiLoad(Arrays.stream(unassignedIds).boxed().toList())
+                        .stream()
+                        .filter(Objects::nonNull)
+                        .toList();
+            } else {
+                long version = UnassignedStocks.version();
+                String sql = """
+                        SELECT s.* FROM Stocks s
+                        WHERE NOT EXISTS (SELECT 1 FROM Company_Stock cs WHERE cs.stock_id = s.id)
+                        """;
+                unassignedStocks = QueryDeadline.apply(session.createNativeQuery(sql, Stock.class)).getResultList();
+                UnassignedStocks.load(unassignedStocks.stream().map(Stock::getId).toList(), version);
+            }
             logger.info("Найдено акций без компаний: {}", unassignedStocks.size());
             return unassignedStocks;
         } catch (Exception e) {
             logger.error("Ошибка загрузки акций без компаний", e);
-            return List.of();
+            throw e;
         }
     }
 
@@ -171,12 +199,12 @@ public class StockDAO implements DAO<Stock> {
             logger.error("Попытка поиска акции с пустым или null тикером");
             throw new IllegalArgumentException("Тикер не может быть пустым");
         }
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Stock> cq = cb.createQuery(Stock.class);
             Root<Stock> root = cq.from(Stock.class);
             cq.select(root).where(cb.equal(root.get("ticket"), ticket));
-            Query<Stock> query = session.createQuery(cq);
+            Query<Stock> query = QueryDeadline.apply(session.createQuery(cq));
             Stock stock = query.uniqueResult();
             if (stock == null) {
                 logger.info("Акция с тикером '{}' не найдена", ticket);
@@ -198,15 +226,18 @@ public class StockDAO implements DAO<Stock> {
      */
     @SuppressWarnings("DuplicatedCode")
     private void executeTransaction(SessionAction action) {
-        Transaction tx = null;
         try (Session session = sessionFactory.openSession()) {
-            tx = session.beginTransaction();
-            action.execute(session);
-            tx.commit();
-        } catch (Exception e) {
-            if (tx != null) tx.rollback();
-            logger.error("Ошибка в транзакции", e);
-            throw e;
+            Transaction tx = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                action.execute(session);
+                tx.commit();
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (tx.isActive()) tx.rollback();
+                logger.error("Ошибка в транзакции", e);
+                throw e;
+            }
         }
     }
 
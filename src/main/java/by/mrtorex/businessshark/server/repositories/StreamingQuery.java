@@ -0,0 +1,61 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.utils.CancellationToken;
+import by.mrtorex.businessshark.server.utils.Deadline;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.SelectionQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение больших выборок курсором.
+ * Строки получаются порциями по {@value #FETCH_SIZE}; между строками проверяются отмена запроса клиентом
+ * и его крайний срок, поэтому отменённое чтение прекращается, не дочитывая таблицу,
+ * и сразу освобождает соединение с базой данных.
+ */
+public final class StreamingQuery {
+    /**
+     * Число строк, получаемых от базы данных за одно обращение.
+     */
+    public static final int FETCH_SIZE = 500;
+
+    private StreamingQuery() {
+    }
+
+    /**
+     * Выполняет запрос курсором и возвращает все строки результата.
+     * PostgreSQL читает результат порциями только внутри транзакции, поэтому запрос выполняется
+     * в отдельной транзакции сессии.
+     *
+     * @param session сессия без открытой транзакции
+     * @param query   запрос сессии
+     * @param <T>     тип строки результата
+     * @return строки результата
+     * @throws by.mrtorex.businessshark.server.exceptions.RequestCancelledException если запрос отменён клиентом
+     * @throws by.mrtorex.businessshark.server.exceptions.RequestTimeoutException   если истёк срок запроса
+     */
+    public static <T> List<T> list(Session session, SelectionQuery<T> query) {
+        Transaction tx = session.beginTransaction();
+        try {
+            QueryDeadline.apply(session);
+            List<T> rows = new ArrayList<>();
+            try (ScrollableResults<T> results = query.setFetchSize(FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    CancellationToken.check();
+                    Deadline.check();
+                    rows.add(results.get());
+                }
+            }
+            tx.commit();
+            return rows;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) tx.rollback();
+            throw e;
+        }
+    }
+}
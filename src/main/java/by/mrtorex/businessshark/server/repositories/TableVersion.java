@@ -0,0 +1,76 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики версий таблиц каталога.
+ * Версия таблицы увеличивается после каждой успешной записи в неё через DAO
+ * и позволяет проверять актуальность закэшированных результатов чтения.
+ * <p>
+ * Счётчики принадлежат процессу: запись через другой экземпляр сервера или в обход DAO их не меняет.
+ * Поэтому в общую версию входит номер периода времени {@link #expireAfter(long)}, и построенные
+ * по версиям кэши устаревают не позднее чем через период после такой записи. Для строгой
+ * согласованности между экземплярами версию пришлось бы хранить в базе данных.
+ */
+public enum TableVersion {
+    STOCKS,
+    COMPANIES,
+    COMPANY_STOCK,
+    ROLES;
+
+    private static volatile long periodNanos;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Возвращает текущую версию таблицы.
+     *
+     * @return версия таблицы
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Отмечает изменение таблицы.
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Задаёт наибольшее время, в течение которого результат, построенный по версиям, считается актуальным
+     * без записи в этом процессе.
+     *
+     * @param millis период, мс; 0 — без ограничения (единственный экземпляр сервера)
+     */
+    public static void expireAfter(long millis) {
+        periodNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Возвращает номер текущего периода актуальности.
+     *
+     * @return номер периода или 0, если период не задан
+     */
+    public static long epoch() {
+        long period = periodNanos;
+        return period > 0 ? System.nanoTime() / period : 0;
+    }
+
+    /**
+     * Возвращает общую версию набора таблиц.
+     * Версии и номер периода только растут, поэтому их сумма меняется при изменении любой из таблиц
+     * и с началом нового периода.
+     *
+     * @param tables таблицы
+     * @return общая версия
+     */
+    public static long combined(TableVersion... tables) {
+        long sum = epoch();
+        for (TableVersion table : tables) {
+            sum += table.get();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,87 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Множество идентификаторов акций, не привязанных ни к одной компании.
+ * Загружается запросом при первом обращении и далее поддерживается операциями DAO,
+ * меняющими акции и их привязку к компаниям, поэтому список акций без компаний
+ * не требует запроса к таблице связей. Удаление компании, после которого неизвестно,
+ * какие акции освободились, сбрасывает множество до следующей загрузки.
+ * <p>
+ * Множество отражает записи этого процесса сервера; изменения, сделанные другим экземпляром сервера
+ * или в обход DAO, станут видны после сброса или перезагрузки множества в следующем периоде
+ * актуальности {@link TableVersion#epoch()}.
+ */
+final class UnassignedStocks {
+    private static final BitSet ids = new BitSet();
+    private static boolean loaded;
+    private static long loadedEpoch;
+
+    private UnassignedStocks() {
+    }
+
+    /**
+     * Возвращает идентификаторы акций без компаний.
+     *
+     * @return идентификаторы по возрастанию или null, если множество не загружено в текущем периоде
+     */
+    static synchronized int[] snapshot() {
+        if (loaded && loadedEpoch != TableVersion.epoch()) {
+            invalidate();
+        }
+        return loaded ? ids.stream().toArray() : null;
+    }
+
+    /**
+     * Загружает множество по результату запроса, если с момента его начала акции и их привязка не менялись.
+     * Иначе результат мог не учесть изменение, которое уже не будет применено к множеству,
+     * и загрузка откладывается до следующего обращения.
+     *
+     * @param stockIds        идентификаторы акций без компаний
+     * @param versionAtLoad   версия таблиц акций и связей на момент начала запроса
+     */
+    static synchronized void load(Collection<Integer> stockIds, long versionAtLoad) {
+        if (versionAtLoad != version()) return;
+        ids.clear();
+        stockIds.forEach(ids::set);
+        loaded = true;
+        loadedEpoch = TableVersion.epoch();
+    }
+
+    /**
+     * Возвращает версию таблиц, от которых зависит множество.
+     *
+     * @return общая версия таблиц акций и связей акций с компаниями
+     */
+    static long version() {
+        return TableVersion.combined(TableVersion.STOCKS, TableVersion.COMPANY_STOCK);
+    }
+
+    /**
+     * Отмечает акцию, не привязанную к компании (новую или отвязанную).
+     *
+     * @param stockId идентификатор акции
+     */
+    static synchronized void add(int stockId) {
+        if (loaded) ids.set(stockId);
+    }
+
+    /**
+     * Убирает акцию из множества (привязанную к компании или удалённую).
+     *
+     * @param stockId идентификатор акции
+     */
+    static synchronized void remove(int stockId) {
+        if (loaded) ids.clear(stockId);
+    }
+
+    /**
+     * Сбрасывает множество до следующей загрузки.
+     */
+    static synchronized void invalidate() {
+        loaded = false;
+        ids.clear();
+    }
+}
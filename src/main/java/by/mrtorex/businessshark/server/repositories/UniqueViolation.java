@@ -0,0 +1,33 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import org.hibernate.JDBCException;
+
+import java.sql.SQLException;
+
+/**
+ * Распознавание нарушения ограничения уникальности.
+ * Создание и обновление сущностей с уникальными полями не проверяют занятость значения заранее:
+ * запись выполняется сразу, а повтор значения определяется по ошибке базы данных.
+ */
+public final class UniqueViolation {
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+    private UniqueViolation() {
+    }
+
+    /**
+     * Проверяет, вызвана ли ошибка записи нарушением ограничения уникальности.
+     *
+     * @param e ошибка записи
+     * @return true, если записываемое значение уже занято другой строкой
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String state = cause instanceof JDBCException jdbc ? jdbc.getSQLState()
+                    : cause instanceof SQLException sql ? sql.getSQLState()
+                    : null;
+            if (UNIQUE_VIOLATION_STATE.equals(state)) return true;
+        }
+        return false;
+    }
+}
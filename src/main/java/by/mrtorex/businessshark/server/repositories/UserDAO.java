@@ -2,6 +2,7 @@ package by.mrtorex.businessshark.server.repositories;
 
 import by.mrtorex.businessshark.server.config.SessionConfig;
 import by.mrtorex.businessshark.server.interfaces.DAO;
+import by.mrtorex.businessshark.server.model.entities.Role;
 import by.mrtorex.businessshark.server.model.entities.User;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
@@ -17,7 +18,9 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -37,7 +40,8 @@ public class UserDAO implements DAO<User> {
     }
 
     /**
-     * Сохраняет нового пользователя в базу данных.
+     * Сохраняет нового пользователя в базу данных вместе с его новыми персональными данными
+     * в одной транзакции.
      *
      * @param user объект пользователя, не может быть null
      * @throws NullPointerException если user равен null
@@ -46,21 +50,42 @@ public class UserDAO implements DAO<User> {
     @Override
     public void save(User user) {
         Objects.requireNonNull(user, "Пользователь не может быть null");
-        executeTransaction(session -> session.persist(user));
+        executeTransaction(session -> {
+            if (user.getPerson() != null && user.getPerson().getId() == null) {
+                session.persist(user.getPerson());
+            }
+            session.persist(user);
+        });
         logger.info("Пользователь сохранён: {}", user);
     }
 
     /**
-     * Обновляет существующего пользователя в базе данных.
+     * Обновляет существующего пользователя и, если они переданы, его персональные данные в одной транзакции
+     * условными запросами (см. {@link VersionedUpdate}). Если хеш пароля не задан, пароль не изменяется.
      *
      * @param user объект пользователя, не может быть null
      * @throws NullPointerException если user равен null
+     * @throws org.hibernate.StaleObjectStateException если пользователь или его персональные данные
+     *                                                 не существуют или изменены другим запросом
      * @throws RuntimeException в случае ошибки работы с базой
      */
     @Override
     public void update(User user) {
         Objects.requireNonNull(user, "Пользователь не может быть null");
-        executeTransaction(session -> session.merge(user));
+        executeTransaction(session -> {
+            if (user.getPerson() != null) {
+                PersonDAO.updateVersioned(session, user.getPerson());
+            }
+            Map<String, Object> values = new HashMap<>();
+            values.put("username", user.getUsername());
+            if (user.getPasswordHash() != null) {
+                values.put("passwordHash", user.getPasswordHash());
+            }
+            if (user.getRole() != null) {
+                values.put("role", session.getReference(Role.class, user.getRole().getId()));
+            }
+            VersionedUpdate.execute(session, User.class, user.getId(), user.getVersion(), values);
+        });
         logger.info("Пользователь обновлён: {}", user);
     }
 
@@ -82,7 +107,7 @@ public class UserDAO implements DAO<User> {
     }
 
     /**
-     * Находит пользователя по его идентификатору.
+     * Находит пользователя по его идентификатору с загрузкой связей роли и персоны одним запросом.
      *
      * @param id положительный идентификатор пользователя
      * @return объект пользователя или null, если не найден
@@ -94,8 +119,12 @@ public class UserDAO implements DAO<User> {
             logger.error("Неверный ID пользователя: {}", id);
             throw new IllegalArgumentException("ID пользователя должен быть положительным числом");
         }
-        try (Session session = sessionFactory.openSession()) {
-            User user = session.get(User.class, id);
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<User> cq = cb.createQuery(User.class);
+            Root<User> root = fromWithRelations(cq);
+            cq.select(root).where(cb.equal(root.get("id"), id));
+            User user = QueryDeadline.apply(session.createQuery(cq)).uniqueResult();
             if (user == null) {
                 logger.info("Пользователь с ID {} не найден", id);
             } else {
@@ -109,20 +138,20 @@ public class UserDAO implements DAO<User> {
     }
 
     /**
-     * Возвращает список всех пользователей из базы.
+     * Возвращает список всех пользователей из базы. Роли и персоны загружаются тем же запросом,
+     * а не отдельным запросом на каждого пользователя.
      *
      * @return список пользователей, может быть пустым
      * @throws RuntimeException в случае ошибки работы с базой
      */
     @Override
     public List<User> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> root = cq.from(User.class);
-            cq.select(root);
-            Query<User> query = session.createQuery(cq);
-            List<User> users = query.getResultList();
+            cq.select(fromWithRelations(cq));
+            Query<User> query = QueryDeadline.apply(session.createQuery(cq));
+            List<User> users = StreamingQuery.list(session, query);
             logger.info("Найдено пользователей: {}", users.size());
             return users;
         } catch (Exception e) {
@@ -144,14 +173,12 @@ public class UserDAO implements DAO<User> {
             logger.error("Попытка поиска пользователя с пустым или null логином");
             throw new IllegalArgumentException("Логин не может быть пустым");
         }
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = SessionConfig.getInstance().openReadSession()) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> root = cq.from(User.class);
-            root.fetch("role", JoinType.LEFT);
-            root.fetch("person", JoinType.LEFT);
+            Root<User> root = fromWithRelations(cq);
             cq.select(root).where(cb.equal(root.get("username"), login));
-            Query<User> query = session.createQuery(cq);
+            Query<User> query = QueryDeadline.apply(session.createQuery(cq));
             User user = query.uniqueResult();
             if (user == null) {
                 logger.info("Пользователь с логином '{}' не найден", login);
@@ -165,6 +192,21 @@ public class UserDAO implements DAO<User> {
         }
     }
 
+    /**
+     * Добавляет в запрос пользователей загрузку роли и персоны соединением.
+     * Без соединения Hibernate загружает жадную роль отдельным запросом на каждую строку,
+     * а ленивая персона недоступна после закрытия сессии, когда пользователь сериализуется.
+     *
+     * @param cq запрос пользователей
+     * @return корень запроса
+     */
+    private static Root<User> fromWithRelations(CriteriaQuery<User> cq) {
+        Root<User> root = cq.from(User.class);
+        root.fetch("role", JoinType.LEFT);
+        root.fetch("person", JoinType.LEFT);
+        return root;
+    }
+
     /**
      * Универсальный метод выполнения транзакции с обработкой ошибок.
      *
@@ -173,15 +215,18 @@ public class UserDAO implements DAO<User> {
      */
     @SuppressWarnings("DuplicatedCode")
     private void executeTransaction(SessionAction action) {
-        Transaction tx = null;
         try (Session session = sessionFactory.openSession()) {
-            tx = session.beginTransaction();
-            action.execute(session);
-            tx.commit();
-        } catch (Exception e) {
-            if (tx != null) tx.rollback();
-            logger.error("Ошибка в транзакции", e);
-            throw e;
+            Transaction tx = session.beginTransaction();
+            try {
+                QueryDeadline.apply(session);
+                action.execute(session);
+                tx.commit();
+            } catch (Exception e) {
+                // Откат до закрытия сессии: после закрытия соединение недоступно и исходная ошибка была бы потеряна
+                if (tx.isActive()) tx.rollback();
+                logger.error("Ошибка в транзакции", e);
+                throw e;
+            }
         }
     }
 
@@ -0,0 +1,79 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.query.MutationQuery;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Условное обновление строки сущности с версией (оптимистическая блокировка).
+ * Строка обновляется одним запросом {@code UPDATE ... WHERE id = ? AND version = ?} с увеличением версии,
+ * без предварительного чтения.
+ * <p>
+ * Пока не все клиенты передают версию, обновление без версии выполняется без условия по версии
+ * (побеждает последняя запись). Свойство {@value #ALLOW_UNVERSIONED} в hibernate.properties, установленное
+ * в false, включает строгий режим: обновление без версии отклоняется так же, как обновление устаревшей строки,
+ * и клиент получает предложение обновить данные. Строгий режим станет режимом по умолчанию после обновления
+ * клиентов.
+ */
+public final class VersionedUpdate {
+    private static final Logger logger = LogManager.getLogger(VersionedUpdate.class);
+    private static final String ALLOW_UNVERSIONED = "businessshark.update.allow_unversioned";
+
+    private VersionedUpdate() {
+    }
+
+    /**
+     * Обновляет строку сущности в текущей транзакции сессии.
+     *
+     * @param session     сессия с открытой транзакцией
+     * @param entityClass класс сущности
+     * @param id          идентификатор строки
+     * @param version     версия строки, известная клиенту, или null для обновления без условия по версии
+     * @param values      новые значения атрибутов сущности по их именам
+     * @throws StaleObjectStateException если строка не существует, её версия изменилась или версия
+     *                                   не передана в строгом режиме
+     */
+    static void execute(Session session, Class<?> entityClass, Integer id, Integer version, Map<String, Object> values) {
+        if (version == null && !ConfigurationHelper.getBoolean(ALLOW_UNVERSIONED,
+                session.getSessionFactory().getProperties(), true)) {
+            logger.warn("Обновление {} с ID {} без версии отклонено", entityClass.getSimpleName(), id);
+            throw new StaleObjectStateException(entityClass.getName(), id);
+        }
+        String assignments = values.keySet().stream()
+                .map(attribute -> "e." + attribute + " = :" + attribute)
+                .collect(Collectors.joining(", "));
+        String hql = "update " + entityClass.getSimpleName() + " e set " + assignments
+                + ", e.version = e.version + 1 where e.id = :id"
+                + (version != null ? " and e.version = :version" : "");
+
+        MutationQuery query = QueryDeadline.apply(session.createMutationQuery(hql));
+        values.forEach(query::setParameter);
+        query.setParameter("id", id);
+        if (version != null) {
+            query.setParameter("version", version);
+        }
+        if (query.executeUpdate() == 0) {
+            throw new StaleObjectStateException(entityClass.getName(), id);
+        }
+    }
+
+    /**
+     * Проверяет, вызвана ли ошибка обновления изменением или удалением строки другим запросом.
+     *
+     * @param e ошибка обновления
+     * @return true, если строка не существует или её версия изменилась
+     */
+    public static boolean isStale(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StaleObjectStateException) return true;
+        }
+        return false;
+    }
+}
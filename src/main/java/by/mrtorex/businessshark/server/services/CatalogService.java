@@ -0,0 +1,66 @@
+package by.mrtorex.businessshark.server.services;
+
+import by.mrtorex.businessshark.server.repositories.CatalogDAO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис массового импорта каталога акций и компаний (см. {@link CatalogDAO}).
+ */
+public class CatalogService {
+    private static final Logger logger = LogManager.getLogger(CatalogService.class);
+    private final CatalogDAO catalogDAO;
+
+    /**
+     * Конструктор с внедрением зависимости DAO.
+     *
+     * @param catalogDAO DAO импорта каталога
+     */
+    public CatalogService(CatalogDAO catalogDAO) {
+        this.catalogDAO = catalogDAO;
+    }
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public CatalogService() {
+        this(new CatalogDAO());
+    }
+
+    /**
+     * Импортирует каталог из CSV и измеряет скорость импорта.
+     *
+     * @param csv CSV каталога с колонками {@code ticket,price,amount,company} и строкой заголовка
+     * @return отчёт об импорте
+     */
+    public ImportReport importCatalog(Reader csv) {
+        long started = System.nanoTime();
+        CatalogDAO.ImportCounts counts = catalogDAO.importCsv(csv);
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        ImportReport report = new ImportReport(counts.rows(), counts.stocks(), counts.companies(), counts.links(),
+                elapsedMillis, counts.rows() * 1000 / elapsedMillis);
+        logger.info("Импорт каталога: строк {}, акций {}, компаний {}, привязок {} за {} мс ({} строк/с)",
+                report.rows(), report.stocks(), report.companies(), report.links(),
+                report.elapsedMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    /**
+     * Отчёт об импорте каталога.
+     *
+     * @param rows          прочитано строк CSV
+     * @param stocks        добавлено или изменено акций
+     * @param companies     добавлено компаний
+     * @param links         добавлено привязок акций к компаниям
+     * @param elapsedMillis длительность импорта, мс
+     * @param rowsPerSecond скорость импорта, строк в секунду
+     */
+    public record ImportReport(long rows, int stocks, int companies, int links,
+                               long elapsedMillis, long rowsPerSecond) {
+    }
+}
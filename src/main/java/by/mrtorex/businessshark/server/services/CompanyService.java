@@ -6,12 +6,13 @@ import by.mrtorex.businessshark.server.model.entities.Company;
 import by.mrtorex.businessshark.server.model.entities.Stock;
 import by.mrtorex.businessshark.server.repositories.CompanyDAO;
 import by.mrtorex.businessshark.server.repositories.StockDAO;
+import by.mrtorex.businessshark.server.repositories.UniqueViolation;
+import by.mrtorex.businessshark.server.repositories.VersionedUpdate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Сервис для управления бизнес-логикой компаний.
@@ -63,25 +64,31 @@ public class CompanyService implements Service<Company> {
 
     /**
      * Обновляет данные компании.
+     * Компания обновляется условным запросом по версии без предварительного чтения; если компания изменена
+     * другим пользователем после получения клиентом, обновление отклоняется. Занятость имени определяет
+     * уникальный индекс по имени компании.
      *
      * @param company компания с обновлёнными данными
-     * @throws ResponseException если компания не найдена или имя уже занято
+     * @throws ResponseException если компания не найдена, изменена другим пользователем или имя уже занято
      */
     @Override
     public void updateEntity(Company company) throws ResponseException {
-        Company existingCompany = companyDAO.findById(company.getId());
-        if (existingCompany == null) {
-            logger.error("Обновление компании не выполнено: компания с ID {} не существует", company.getId());
-            throw new ResponseException("Ошибка обновления: компания не существует");
-        }
-
-        Company companyWithSuchName = companyDAO.findByName(company.getName());
-        if (companyWithSuchName != null && !Objects.equals(companyWithSuchName.getId(), existingCompany.getId())) {
-            logger.error("Обновление компании не выполнено: имя '{}' уже занято", company.getName());
-            throw new ResponseException("Ошибка обновления: компания с таким именем уже существует");
+        try {
+            companyDAO.update(company);
+        } catch (RuntimeException e) {
+            if (UniqueViolation.isCause(e)) {
+                logger.error("Обновление компании не выполнено: имя '{}' уже занято", company.getName());
+                throw new ResponseException("Ошибка обновления: компания с таким именем уже существует");
+            }
+            if (!VersionedUpdate.isStale(e)) throw e;
+            if (company.getId() == null || companyDAO.findById(company.getId()) == null) {
+                logger.error("Обновление компании не выполнено: компания с ID {} не существует", company.getId());
+                throw new ResponseException("Ошибка обновления: компания не существует");
+            }
+            logger.error("Обновление компании не выполнено: компания с ID {} изменена другим пользователем",
+                    company.getId());
+            throw new ResponseException("Ошибка обновления: компания изменена другим пользователем, обновите данные");
         }
-
-        companyDAO.update(company);
         logger.info("Данные компании обновлены: ID {}", company.getId());
     }
 
@@ -107,17 +114,20 @@ public class CompanyService implements Service<Company> {
 
     /**
      * Создаёт новую компанию.
+     * Занятость имени не проверяется заранее: её определяет уникальный индекс по имени компании.
      *
      * @param company новая компания
      * @return созданная компания
      * @throws ResponseException если компания с таким именем уже существует
      */
     public Company create(Company company) throws ResponseException {
-        if (companyDAO.findByName(company.getName()) != null) {
+        try {
+            companyDAO.save(company);
+        } catch (RuntimeException e) {
+            if (!UniqueViolation.isCause(e)) throw e;
             logger.error("Создание компании не выполнено: имя '{}' уже занято", company.getName());
             throw new ResponseException("Ошибка создания: компания с таким именем уже существует");
         }
-        companyDAO.save(company);
         logger.info("Создана новая компания: {}", company.getName());
         return company;
     }
@@ -0,0 +1,101 @@
+package by.mrtorex.businessshark.server.services;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.repositories.PortfolioDAO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Сервис сводки портфеля пользователя для главного экрана.
+ * Собирает баланс счета и акции портфеля с доступным количеством и компанией каждой акции.
+ * Акции со всеми сведениями читаются одним запросом независимо от их числа;
+ * баланс читается параллельно с ним в пуле потоков базы данных.
+ */
+public class DashboardService {
+    private static final Logger logger = LogManager.getLogger(DashboardService.class);
+    private final PortfolioService portfolioService;
+
+    /**
+     * Конструктор с внедрением зависимости сервиса.
+     *
+     * @param portfolioService сервис портфелей
+     */
+    public DashboardService(PortfolioService portfolioService) {
+        this.portfolioService = portfolioService;
+    }
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public DashboardService() {
+        this(new PortfolioService());
+    }
+
+    /**
+     * Собирает сводку портфеля пользователя.
+     * Баланс и позиции портфеля запрашиваются одновременно. При ошибке одного обращения
+     * другое отменяется, если ещё не начато.
+     *
+     * @param userId ID пользователя
+     * @return сводка портфеля
+     * @throws IllegalArgumentException если userId некорректен
+     */
+    public Dashboard getDashboard(int userId) {
+        if (userId <= 0) {
+            logger.error("Некорректный ID пользователя для получения сводки: {}", userId);
+            throw new IllegalArgumentException("ID пользователя должен быть положительным");
+        }
+        SessionConfig database = SessionConfig.getInstance();
+
+        CompletableFuture<Double> account = database.supplyAsync(() -> portfolioService.getAccount(userId));
+        CompletableFuture<List<PortfolioDAO.Position>> holdings =
+                database.supplyAsync(() -> portfolioService.findUserPositions(userId));
+        awaitAll(List.of(account, holdings));
+
+        List<PortfolioDAO.Position> positions = holdings.join();
+        logger.info("Собрана сводка пользователя ID {}, акций: {}", userId, positions.size());
+        return new Dashboard(account.join(), positions);
+    }
+
+    /**
+     * Ожидает завершения всех обращений. Первая ошибка отменяет остальные обращения
+     * и передаётся вызывающему.
+     *
+     * @param futures обращения к базе данных
+     */
+    private static void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    futures.forEach(other -> other.cancel(false));
+                }
+            });
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException | CancellationException e) {
+            for (CompletableFuture<?> future : futures) {
+                if (future.isCompletedExceptionally() && !future.isCancelled()) {
+                    Throwable cause = future.exceptionNow();
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Сводка портфеля пользователя.
+     *
+     * @param account   баланс счета
+     * @param positions акции портфеля
+     */
+    public record Dashboard(Double account, List<PortfolioDAO.Position> positions) {
+    }
+}
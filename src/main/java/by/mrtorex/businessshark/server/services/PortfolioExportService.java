@@ -0,0 +1,104 @@
+package by.mrtorex.businessshark.server.services;
+
+import by.mrtorex.businessshark.server.repositories.PortfolioExportDAO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис массовой выгрузки портфелей и счетов пользователей для отчётности (см. {@link PortfolioExportDAO}).
+ */
+public class PortfolioExportService {
+    private static final Logger logger = LogManager.getLogger(PortfolioExportService.class);
+    private static final long PROGRESS_INTERVAL = 100_000;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private final PortfolioExportDAO portfolioExportDAO;
+
+    /**
+     * Конструктор с внедрением зависимости DAO.
+     *
+     * @param portfolioExportDAO DAO выгрузки портфелей
+     */
+    public PortfolioExportService(PortfolioExportDAO portfolioExportDAO) {
+        this.portfolioExportDAO = portfolioExportDAO;
+    }
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public PortfolioExportService() {
+        this(new PortfolioExportDAO());
+    }
+
+    /**
+     * Выгружает портфели в новый файл каталога выгрузок.
+     * Файл записывается под временным именем и получает окончательное имя только после успешной выгрузки,
+     * поэтому в каталоге не остаётся неполных выгрузок.
+     *
+     * @param directory каталог выгрузок
+     * @return отчёт о выгрузке с именем файла
+     * @throws UncheckedIOException если файл не удалось создать или записать
+     */
+    public ExportReport exportToDirectory(Path directory) {
+        Path file = directory.resolve("portfolios-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".csv");
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.createDirectories(directory);
+            ExportReport report;
+            try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                report = export(out, file.getFileName().toString());
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи файла выгрузки " + file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить неполную выгрузку {}: {}", partial, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Выгружает портфели в поток вывода, сообщая в журнал о ходе выгрузки.
+     *
+     * @param out         поток вывода CSV
+     * @param destination описание места выгрузки для отчёта
+     * @return отчёт о выгрузке
+     */
+    public ExportReport export(Writer out, String destination) {
+        long started = System.nanoTime();
+        long rows = portfolioExportDAO.exportCsv(out, PROGRESS_INTERVAL,
+                exported -> logger.info("Выгрузка портфелей в {}: выгружено строк {}", destination, exported));
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        ExportReport report = new ExportReport(destination, rows, elapsedMillis, rows * 1000 / elapsedMillis);
+        logger.info("Выгрузка портфелей в {} завершена: строк {} за {} мс ({} строк/с)",
+                destination, rows, elapsedMillis, report.rowsPerSecond());
+        return report;
+    }
+
+    /**
+     * Отчёт о выгрузке портфелей.
+     *
+     * @param destination   место выгрузки
+     * @param rows          выгружено строк
+     * @param elapsedMillis длительность выгрузки, мс
+     * @param rowsPerSecond скорость выгрузки, строк в секунду
+     */
+    public record ExportReport(String destination, long rows, long elapsedMillis, long rowsPerSecond) {
+    }
+}
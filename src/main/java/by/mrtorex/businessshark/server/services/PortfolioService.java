@@ -96,6 +96,21 @@ public class PortfolioService {
         return portfolioDAO.findAllUserStocks(userId);
     }
 
+    /**
+     * Получает акции пользователя с доступным количеством и компанией каждой акции.
+     *
+     * @param userId ID пользователя
+     * @return позиции портфеля
+     * @throws IllegalArgumentException если userId некорректен
+     */
+    public List<PortfolioDAO.Position> findUserPositions(int userId) {
+        if (userId <= 0) {
+            logger.error("Некорректный ID пользователя для получения позиций портфеля: {}", userId);
+            throw new IllegalArgumentException("ID пользователя должен быть положительным");
+        }
+        return portfolioDAO.findUserPositions(userId);
+    }
+
     /**
      * Получает список всех записей портфеля всех пользователей.
      *
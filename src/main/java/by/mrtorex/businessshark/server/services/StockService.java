@@ -4,12 +4,13 @@ import by.mrtorex.businessshark.server.exceptions.ResponseException;
 import by.mrtorex.businessshark.server.interfaces.Service;
 import by.mrtorex.businessshark.server.model.entities.Stock;
 import by.mrtorex.businessshark.server.repositories.StockDAO;
+import by.mrtorex.businessshark.server.repositories.UniqueViolation;
+import by.mrtorex.businessshark.server.repositories.VersionedUpdate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Сервис для управления сущностями акций.
@@ -75,29 +76,35 @@ public class StockService implements Service<Stock> {
 
     /**
      * Обновление существующей акции.
+     * Акция обновляется условным запросом по версии без предварительного чтения; если акция изменена
+     * другим пользователем после получения клиентом, обновление отклоняется. Занятость тикета определяет
+     * уникальный индекс по тикету.
      *
      * @param stock акция с обновлёнными данными, должна иметь идентификатор
      * @throws IllegalArgumentException если акция null или без id
-     * @throws ResponseException если акция не существует или тикет уже занят
+     * @throws ResponseException если акция не существует, изменена другим пользователем или тикет уже занят
      */
     public void updateEntity(Stock stock) throws ResponseException {
         if (stock == null || stock.getId() == null) {
             logger.error("Попытка обновить null-акцию или акцию без ID");
             throw new IllegalArgumentException("Акция для обновления должна иметь ID");
         }
-        Stock existingStock = stockDAO.findById(stock.getId());
-        if (existingStock == null) {
-            logger.warn("Обновление не удалось: акция с ID {} не существует", stock.getId());
-            throw new ResponseException("Ошибка обновления: акция не существует");
-        }
 
-        Stock stockWithSuchTicket = stockDAO.findByTicket(stock.getTicket());
-        if (stockWithSuchTicket != null && !Objects.equals(stockWithSuchTicket.getId(), existingStock.getId())) {
-            logger.warn("Обновление не удалось: акция с тикетом '{}' уже существует", stock.getTicket());
-            throw new ResponseException("Ошибка обновления: акция с таким тикетом уже существует");
+        try {
+            stockDAO.update(stock);
+        } catch (RuntimeException e) {
+            if (UniqueViolation.isCause(e)) {
+                logger.warn("Обновление не удалось: акция с тикетом '{}' уже существует", stock.getTicket());
+                throw new ResponseException("Ошибка обновления: акция с таким тикетом уже существует");
+            }
+            if (!VersionedUpdate.isStale(e)) throw e;
+            if (stockDAO.findById(stock.getId()) == null) {
+                logger.warn("Обновление не удалось: акция с ID {} не существует", stock.getId());
+                throw new ResponseException("Ошибка обновления: акция не существует");
+            }
+            logger.warn("Обновление не удалось: акция с ID {} изменена другим пользователем", stock.getId());
+            throw new ResponseException("Ошибка обновления: акция изменена другим пользователем, обновите данные");
         }
-
-        stockDAO.update(stock);
         logger.info("Обновлена акция с ID {}", stock.getId());
     }
 
@@ -137,6 +144,7 @@ public class StockService implements Service<Stock> {
 
     /**
      * Создание новой акции.
+     * Занятость тикета не проверяется заранее: её определяет уникальный индекс по тикету.
      *
      * @param stock объект акции для создания, тикет не должен быть пустым или null
      * @return созданная акция
@@ -148,11 +156,13 @@ public class StockService implements Service<Stock> {
             logger.error("Попытка создать акцию с некорректным тикетом");
             throw new IllegalArgumentException("Акция и тикет не могут быть null или пустыми");
         }
-        if (stockDAO.findByTicket(stock.getTicket()) != null) {
+        try {
+            stockDAO.save(stock);
+        } catch (RuntimeException e) {
+            if (!UniqueViolation.isCause(e)) throw e;
             logger.warn("Создание не удалось: акция с тикетом '{}' уже существует", stock.getTicket());
             throw new ResponseException("Ошибка создания: акция с таким тикетом уже существует");
         }
-        stockDAO.save(stock);
         logger.info("Создана новая акция с тикетом {}", stock.getTicket());
         return stock;
     }
@@ -2,14 +2,14 @@ package by.mrtorex.businessshark.server.services;
 
 import by.mrtorex.businessshark.server.exceptions.ResponseException;
 import by.mrtorex.businessshark.server.interfaces.Service;
-import by.mrtorex.businessshark.server.model.entities.Person;
 import by.mrtorex.businessshark.server.model.entities.Role;
 import by.mrtorex.businessshark.server.model.entities.User;
+import by.mrtorex.businessshark.server.repositories.UniqueViolation;
 import by.mrtorex.businessshark.server.repositories.UserDAO;
+import by.mrtorex.businessshark.server.repositories.VersionedUpdate;
 import by.mrtorex.businessshark.server.validators.UserValidator;
 
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Сервис для управления сущностями пользователей.
@@ -44,34 +44,31 @@ public class UserService implements Service<User> {
 
     /**
      * Регистрация нового пользователя с привязкой к сущности Person и роли.
+     * Пользователь и его персональные данные сохраняются в одной транзакции; занятость логина
+     * не проверяется заранее, её определяет уникальный индекс по логину.
      *
      * @param user объект пользователя для регистрации
-     * @param personService сервис для работы с персональными данными
      * @param roleService сервис для работы с ролями
      * @return зарегистрированный пользователь
      * @throws ResponseException при отсутствии данных, дублировании или неверной роли
      */
-    public User register(User user, PersonService personService, RoleService roleService) throws ResponseException {
+    public User register(User user, RoleService roleService) throws ResponseException {
         if (!new UserValidator().isFullValid(user)) {
             throw new ResponseException("Ошибка регистрации: неполные данные");
         }
 
-        User existingUser = userDAO.findByLogin(user.getUsername());
-        if (existingUser != null) {
-            throw new ResponseException("Ошибка регистрации: пользователь с таким логином уже существует");
-        }
-
-        Person person = user.getPerson();
-        personService.saveEntity(person);
-        user.setPerson(person);
-
         Role role = roleService.findRoleByName(user.getRole().getName());
         if (role == null) {
             throw new ResponseException("Ошибка регистрации: роль не найдена");
         }
         user.setRole(role);
 
-        userDAO.save(user);
+        try {
+            userDAO.save(user);
+        } catch (RuntimeException e) {
+            if (!UniqueViolation.isCause(e)) throw e;
+            throw new ResponseException("Ошибка регистрации: пользователь с таким логином уже существует");
+        }
 
         return user;
     }
@@ -123,32 +120,33 @@ public class UserService implements Service<User> {
     }
 
     /**
-     * Обновление пользователя с проверками и обновлением связанных данных Person.
+     * Обновление пользователя с проверками вместе со связанными данными Person.
+     * Пользователь и его персональные данные обновляются в одной транзакции условными запросами по версии
+     * без предварительного чтения; если они изменены другим пользователем после получения клиентом,
+     * обновление отклоняется. Занятость логина определяет уникальный индекс по логину.
+     * Если хеш пароля не передан, сохраняется прежний пароль.
      *
      * @param newUser объект пользователя с обновлёнными данными
-     * @param personService сервис для обновления персональных данных
-     * @throws ResponseException если пользователь не найден, данные невалидны или логин занят
+     * @throws ResponseException если пользователь не найден или изменён другим пользователем,
+     *                           данные невалидны или логин занят
      */
-    public void updateEntity(User newUser, PersonService personService) {
-        User existingUser = userDAO.findById(newUser.getId());
-
-        if (existingUser == null) {
-            throw new ResponseException("Ошибка обновления: пользователь не существует");
-        }
-
-        User userWithSuchUsername = userDAO.findByLogin(newUser.getUsername());
-
-        if (userWithSuchUsername != null && !Objects.equals(userWithSuchUsername.getId(), existingUser.getId())) {
-            throw new ResponseException("Ошибка обновления: пользователь с таким логином уже существует");
-        }
-
-        if (!new UserValidator().isFullValid(newUser)) {
+    public void updateUser(User newUser) {
+        if (!new UserValidator().isValidUpdate(newUser)) {
             throw new ResponseException("Ошибка обновления: данные пользователя некорректны");
         }
 
-        personService.updateEntity(newUser.getPerson());
-
-        userDAO.update(newUser);
+        try {
+            userDAO.update(newUser);
+        } catch (RuntimeException e) {
+            if (UniqueViolation.isCause(e)) {
+                throw new ResponseException("Ошибка обновления: пользователь с таким логином уже существует");
+            }
+            if (!VersionedUpdate.isStale(e)) throw e;
+            if (newUser.getId() == null || userDAO.findById(newUser.getId()) == null) {
+                throw new ResponseException("Ошибка обновления: пользователь не существует");
+            }
+            throw new ResponseException("Ошибка обновления: пользователь изменён другим пользователем, обновите данные");
+        }
     }
 
     /**
@@ -0,0 +1,78 @@
+package by.mrtorex.businessshark.server.utils;
+
+import by.mrtorex.businessshark.server.exceptions.RequestCancelledException;
+
+import java.util.function.Supplier;
+
+/**
+ * Признак отмены запроса клиентом.
+ * Признак текущего запроса доступен слоям ниже (DAO) без передачи через параметры:
+ * длительные чтения проверяют его по мере получения строк и прекращают работу.
+ */
+public final class CancellationToken {
+    private static final ThreadLocal<CancellationToken> current = new ThreadLocal<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Отменяет запрос.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Проверяет, отменён ли запрос.
+     *
+     * @return true, если запрос отменён
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Выполняет действие с заданным признаком отмены. Прежний признак потока восстанавливается после выполнения.
+     *
+     * @param token  признак отмены запроса
+     * @param action действие
+     * @param <T>    тип результата
+     * @return результат действия
+     */
+    public static <T> T call(CancellationToken token, Supplier<T> action) {
+        CancellationToken previous = current.get();
+        current.set(token);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Связывает действие с признаком отмены текущего потока, чтобы выполнить его в другом потоке.
+     *
+     * @param action действие
+     * @param <T>    тип результата
+     * @return действие, выполняемое с признаком отмены текущего потока
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> action) {
+        CancellationToken token = current.get();
+        return token == null ? action : () -> call(token, action);
+    }
+
+    /**
+     * Проверяет, что текущий запрос не отменён.
+     *
+     * @throws RequestCancelledException если запрос отменён
+     */
+    public static void check() {
+        CancellationToken token = current.get();
+        if (token != null && token.cancelled) {
+            throw new RequestCancelledException();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package by.mrtorex.businessshark.server.utils;
+
+import by.mrtorex.businessshark.server.exceptions.RequestTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Крайний срок выполнения текущего запроса.
+ * Срок задаётся на время выполнения обработчика запроса и доступен слоям ниже (DAO)
+ * без передачи через параметры: по нему вычисляются тайм-ауты запросов к базе данных.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Long> current = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * Выполняет действие с заданным крайним сроком. Прежний срок потока восстанавливается после выполнения.
+     *
+     * @param deadlineNanos крайний срок в шкале {@link System#nanoTime()}
+     * @param action        действие
+     * @param <T>           тип результата
+     * @return результат действия
+     */
+    public static <T> T call(long deadlineNanos, Supplier<T> action) {
+        Long previous = current.get();
+        current.set(deadlineNanos);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Связывает действие с крайним сроком текущего потока, чтобы выполнить его в другом потоке.
+     *
+     * @param action действие
+     * @param <T>    тип результата
+     * @return действие, выполняемое с крайним сроком текущего потока
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> action) {
+        Long deadline = current.get();
+        return deadline == null ? action : () -> call(deadline, action);
+    }
+
+    /**
+     * Проверяет, задан ли крайний срок для текущего потока.
+     *
+     * @return true, если срок задан
+     */
+    public static boolean isSet() {
+        return current.get() != null;
+    }
+
+    /**
+     * Возвращает оставшееся до крайнего срока время.
+     *
+     * @return оставшееся время, мс; {@link Long#MAX_VALUE}, если срок не задан
+     */
+    public static long remainingMillis() {
+        Long deadline = current.get();
+        if (deadline == null) return Long.MAX_VALUE;
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    /**
+     * Проверяет, что крайний срок ещё не наступил.
+     *
+     * @throws RequestTimeoutException если срок истёк
+     */
+    public static void check() {
+        if (remainingMillis() <= 0) {
+            throw new RequestTimeoutException();
+        }
+    }
+}
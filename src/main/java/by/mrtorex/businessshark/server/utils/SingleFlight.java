@@ -0,0 +1,51 @@
+package by.mrtorex.businessshark.server.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одновременных одинаковых вычислений.
+ * Первый вызов с данным ключом выполняет вычисление, а вызовы с тем же ключом,
+ * поступившие до его завершения, ожидают и получают тот же результат.
+ * После завершения ключ освобождается, результат не кэшируется.
+ *
+ * @param <K> тип ключа вычисления
+ * @param <V> тип результата
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Выполняет вычисление или присоединяется к уже выполняющемуся вычислению с тем же ключом.
+     *
+     * @param key      ключ вычисления
+     * @param supplier вычисление
+     * @return результат вычисления
+     * @throws RuntimeException исключение, выброшенное вычислением
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            V value = supplier.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+}
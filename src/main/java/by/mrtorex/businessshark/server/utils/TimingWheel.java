@@ -0,0 +1,162 @@
+package by.mrtorex.businessshark.server.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хешированное колесо таймеров.
+ * Постановка и отмена таймера выполняются за O(1): новые таймеры попадают в неблокирующую очередь,
+ * а поток колеса на каждом тике переносит их в ячейки и срабатывает ячейку текущего тика.
+ * Точность срабатывания ограничена длительностью тика.
+ */
+public class TimingWheel {
+    private static final Logger logger = LogManager.getLogger(TimingWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final ArrayDeque<Timeout>[] buckets;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * Создаёт колесо таймеров и запускает его поток.
+     *
+     * @param tickDuration длительность тика
+     * @param unit         единица измерения длительности тика
+     * @param wheelSize    количество ячеек колеса, округляется вверх до степени двойки
+     * @param threadName   имя потока колеса
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, String threadName) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Параметры колеса таймеров должны быть положительными");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) size = 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.buckets = newBuckets(size);
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArrayDeque<Timeout>[] newBuckets(int size) {
+        ArrayDeque<Timeout>[] buckets = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        return buckets;
+    }
+
+    /**
+     * Планирует выполнение задачи через заданную задержку.
+     * Задача выполняется в потоке колеса и должна быть короткой.
+     *
+     * @param task  задача
+     * @param delay задержка
+     * @param unit  единица измерения задержки
+     * @return дескриптор таймера для отмены
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Останавливает поток колеса. Несработавшие таймеры отбрасываются.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Цикл потока колеса: ожидает границу тика, переносит новые таймеры и обрабатывает текущую ячейку.
+     */
+    private void run() {
+        while (running) {
+            long sleepNanos = startTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+            }
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Распределяет новые таймеры по ячейкам колеса.
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) continue;
+            long targetTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (targetTick - tick) / buckets.length;
+            buckets[(int) (targetTick & mask)].addLast(timeout);
+        }
+    }
+
+    /**
+     * Выполняет таймеры ячейки, у которых не осталось оборотов, и удаляет отменённые.
+     *
+     * @param bucket ячейка текущего тика
+     */
+    private void expire(ArrayDeque<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (Exception e) {
+                    logger.error("Ошибка при выполнении задачи таймера", e);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * Дескриптор запланированного таймера.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Отменяет таймер. Отменённый таймер удаляется из колеса при очередном проходе его ячейки.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package by.mrtorex.businessshark.server.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Неблокирующее ведро токенов.
+ * Состояние хранится в одном {@code long}: старшие 42 бита — момент последнего пополнения в миллисекундах,
+ * младшие 22 бита — накопленный кредит в миллисекундах. Один токен стоит {@code intervalMillis} кредита,
+ * кредит растёт на единицу за каждую прошедшую миллисекунду и ограничен ёмкостью ведра.
+ * Захват токена — одна успешная операция compare-and-set без блокировок.
+ */
+public final class TokenBucket {
+    private static final int CREDIT_BITS = 22;
+    private static final long CREDIT_MASK = (1L << CREDIT_BITS) - 1;
+    private static final long EPOCH = System.nanoTime();
+
+    private final long intervalMillis;
+    private final long maxCredit;
+    private final AtomicLong state;
+
+    /**
+     * Создаёт заполненное ведро.
+     *
+     * @param intervalMillis интервал пополнения одного токена, мс
+     * @param burst          ёмкость ведра в токенах
+     * @throws IllegalArgumentException если параметры не положительны или ёмкость не помещается в состояние
+     */
+    public TokenBucket(long intervalMillis, int burst) {
+        if (intervalMillis <= 0 || burst <= 0 || intervalMillis * burst > CREDIT_MASK) {
+            throw new IllegalArgumentException("Некорректные параметры ведра токенов: интервал "
+                    + intervalMillis + " мс, ёмкость " + burst);
+        }
+        this.intervalMillis = intervalMillis;
+        this.maxCredit = intervalMillis * burst;
+        this.state = new AtomicLong(pack(now(), maxCredit));
+    }
+
+    /**
+     * Пытается захватить один токен.
+     *
+     * @return 0, если токен захвачен, иначе время в миллисекундах до появления следующего токена
+     */
+    public long tryAcquire() {
+        while (true) {
+            long current = state.get();
+            long now = now();
+            long credit = creditAt(current, now);
+            if (credit < intervalMillis) {
+                return intervalMillis - credit;
+            }
+            if (state.compareAndSet(current, pack(now, credit - intervalMillis))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, заполнено ли ведро полностью, то есть не использовалось как минимум время полного пополнения.
+     *
+     * @return true, если ведро заполнено
+     */
+    public boolean isFull() {
+        return creditAt(state.get(), now()) >= maxCredit;
+    }
+
+    private long creditAt(long packed, long now) {
+        long elapsed = Math.max(0, now - (packed >>> CREDIT_BITS));
+        return Math.min(maxCredit, (packed & CREDIT_MASK) + Math.min(elapsed, maxCredit));
+    }
+
+    private static long pack(long timeMillis, long credit) {
+        return (timeMillis << CREDIT_BITS) | credit;
+    }
+
+    private static long now() {
+        return (System.nanoTime() - EPOCH) / 1_000_000L;
+    }
+}
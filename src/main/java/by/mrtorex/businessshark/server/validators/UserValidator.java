@@ -21,6 +21,23 @@ public class UserValidator implements Validatable<User> {
                 new RoleValidator().isValid(user.getRole());
     }
 
+    /**
+     * Проверка пользователя для обновления: как полная проверка, но хеш пароля может отсутствовать —
+     * тогда сохраняется прежний пароль. Ответы сервера хеш не содержат, поэтому клиент, отправляющий
+     * полученного пользователя обратно, его не передаёт.
+     *
+     * @param user объект пользователя для проверки
+     * @return true, если все данные корректны, иначе false
+     */
+    public boolean isValidUpdate(User user) {
+        return user != null &&
+                user.getUsername() != null &&
+                !user.getUsername().isEmpty() &&
+                (user.getPasswordHash() == null || !user.getPasswordHash().isEmpty()) &&
+                new PersonValidator().isValid(user.getPerson()) &&
+                new RoleValidator().isValid(user.getRole());
+    }
+
     /**
      * Базовая проверка объекта User: проверка логина и хеша пароля.
      *
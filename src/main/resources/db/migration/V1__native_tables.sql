@@ -0,0 +1,20 @@
+-- Таблицы связей, с которыми DAO работают через собственные SQL-запросы (не сущности Hibernate).
+-- Создаются только при отсутствии, поэтому для существующей базы миграция ничего не меняет.
+
+CREATE TABLE IF NOT EXISTS User_Stock (
+    user_id  INTEGER NOT NULL REFERENCES Users (id) ON DELETE CASCADE,
+    stock_id INTEGER NOT NULL REFERENCES Stocks (id) ON DELETE CASCADE,
+    amount   INTEGER NOT NULL,
+    PRIMARY KEY (user_id, stock_id)
+);
+
+CREATE TABLE IF NOT EXISTS Company_Stock (
+    company_id INTEGER NOT NULL REFERENCES Companies (id) ON DELETE CASCADE,
+    stock_id   INTEGER NOT NULL REFERENCES Stocks (id) ON DELETE CASCADE,
+    PRIMARY KEY (company_id, stock_id)
+);
+
+CREATE TABLE IF NOT EXISTS Accounts (
+    user_id INTEGER PRIMARY KEY REFERENCES Users (id) ON DELETE CASCADE,
+    account DOUBLE PRECISION NOT NULL DEFAULT 0
+);
@@ -0,0 +1,52 @@
+-- Индексы для запросов DAO.
+
+-- Доступное количество акции и удаление акции: поиск строк портфелей по акции
+-- (первичный ключ (user_id, stock_id) для этого не подходит).
+CREATE INDEX IF NOT EXISTS idx_user_stock_stock_id ON User_Stock (stock_id);
+
+-- Компания акции и акции без компании: поиск по акции; акция принадлежит не более чем одной компании.
+-- Уникальный индекс не создаётся при повторах, поэтому сначала проверяются повторы с понятным сообщением
+-- (до 20 значений с ID строк); миграция применится после их исправления.
+DO $$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(format('%s (%s)', value, ids), '; ' ORDER BY value)
+    INTO duplicates
+    FROM (SELECT stock_id AS value, string_agg(company_id::text, ', ' ORDER BY company_id) AS ids
+          FROM Company_Stock
+          GROUP BY stock_id
+          HAVING count(*) > 1
+          ORDER BY stock_id
+          LIMIT 20) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Акции привязаны к нескольким компаниям, ID акции (ID компаний): %', duplicates
+            USING HINT = 'Оставьте для каждой акции одну строку Company_Stock и перезапустите сервер';
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_company_stock_stock_id ON Company_Stock (stock_id);
+
+-- Поиск акции по тикеру.
+DO $$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(format('%s (%s)', value, ids), '; ' ORDER BY value)
+    INTO duplicates
+    FROM (SELECT ticket AS value, string_agg(id::text, ', ' ORDER BY id) AS ids
+          FROM Stocks
+          GROUP BY ticket
+          HAVING count(*) > 1
+          ORDER BY ticket
+          LIMIT 20) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Повторяющиеся тикеры акций, тикер (ID акций): %', duplicates
+            USING HINT = 'Переименуйте или удалите повторяющиеся акции и перезапустите сервер';
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_stocks_ticket ON Stocks (ticket);
+
+-- Поиск компании по названию.
+CREATE INDEX IF NOT EXISTS idx_companies_name ON Companies (name);
@@ -0,0 +1,5 @@
+-- Версии строк для оптимистической блокировки при обновлении сущностей.
+ALTER TABLE Stocks ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE Companies ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE Persons ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE Users ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
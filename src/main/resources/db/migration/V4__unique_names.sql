@@ -0,0 +1,48 @@
+-- Уникальность названий, на которую опираются создание и обновление сущностей
+-- вместо предварительной проверки занятости значения.
+
+-- Уникальный индекс не создаётся при повторах, поэтому сначала проверяются повторы с понятным сообщением
+-- (до 20 значений с ID строк); миграция применится после их исправления.
+
+-- Название компании (заменяет неуникальный индекс из V2).
+DO $$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(format('%s (%s)', value, ids), '; ' ORDER BY value)
+    INTO duplicates
+    FROM (SELECT name AS value, string_agg(id::text, ', ' ORDER BY id) AS ids
+          FROM Companies
+          GROUP BY name
+          HAVING count(*) > 1
+          ORDER BY name
+          LIMIT 20) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Повторяющиеся названия компаний, название (ID компаний): %', duplicates
+            USING HINT = 'Переименуйте или объедините повторяющиеся компании и перезапустите сервер';
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_companies_name ON Companies (name);
+DROP INDEX IF EXISTS idx_companies_name;
+
+-- Логин пользователя.
+DO $$
+DECLARE
+    duplicates TEXT;
+BEGIN
+    SELECT string_agg(format('%s (%s)', value, ids), '; ' ORDER BY value)
+    INTO duplicates
+    FROM (SELECT username AS value, string_agg(id::text, ', ' ORDER BY id) AS ids
+          FROM Users
+          GROUP BY username
+          HAVING count(*) > 1
+          ORDER BY username
+          LIMIT 20) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Повторяющиеся логины пользователей, логин (ID пользователей): %', duplicates
+            USING HINT = 'Переименуйте повторяющихся пользователей и перезапустите сервер';
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON Users (username);
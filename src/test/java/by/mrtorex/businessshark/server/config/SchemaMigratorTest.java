@@ -0,0 +1,127 @@
+package by.mrtorex.businessshark.server.config;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка миграций V1–V4 на чистой базе данных: миграции применяются и повторно не применяются,
+ * индексы создаются, а запросы поиска DAO используют их (план строится с запретом последовательного
+ * чтения, чтобы на пустых таблицах выбор плана не зависел от статистики).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigratorTest {
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void startDatabase() {
+        sessionFactory = TestDatabase.start().getSessionFactory();
+    }
+
+    @Test
+    void appliesAllMigrationsOnce() {
+        assertEquals(List.of(1, 2, 3, 4), appliedVersions());
+        SchemaMigrator.migrate(sessionFactory);
+        assertEquals(List.of(1, 2, 3, 4), appliedVersions());
+    }
+
+    @Test
+    void createsIndexes() {
+        Set<String> indexes = new HashSet<>(query("SELECT indexname FROM pg_indexes WHERE schemaname = 'public'"));
+        assertTrue(indexes.containsAll(Set.of("idx_user_stock_stock_id", "ux_company_stock_stock_id",
+                "ux_stocks_ticket", "ux_companies_name", "ux_users_username")), indexes.toString());
+        assertFalse(indexes.contains("idx_companies_name"), "Неуникальный индекс названий компаний не удалён");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finderQueries")
+    void finderQueryUsesIndex(String index, String sql) {
+        String plan = explain(sql);
+        assertTrue(plan.contains(index), plan);
+    }
+
+    /**
+     * Запросы поиска DAO, для которых созданы индексы, с ожидаемым индексом.
+     *
+     * @return индекс и запрос
+     */
+    static Stream<Arguments> finderQueries() {
+        return Stream.of(
+                Arguments.of("ux_stocks_ticket", "SELECT * FROM Stocks WHERE ticket = 'SHRK'"),
+                Arguments.of("ux_companies_name", "SELECT * FROM Companies WHERE name = 'Shark'"),
+                Arguments.of("ux_users_username", "SELECT * FROM Users WHERE username = 'shark'"),
+                Arguments.of("ux_company_stock_stock_id", """
+                        SELECT c.* FROM Companies c
+                        JOIN Company_Stock cs ON c.id = cs.company_id
+                        WHERE cs.stock_id = 1"""),
+                Arguments.of("ux_company_stock_stock_id", "DELETE FROM Company_Stock WHERE stock_id = 1"),
+                // Каскадное удаление строк портфелей при удалении акции
+                Arguments.of("idx_user_stock_stock_id", "DELETE FROM User_Stock WHERE stock_id = 1"),
+                Arguments.of("idx_user_stock_stock_id", """
+                        SELECT s.amount - COALESCE(SUM(us.amount), 0) AS available_amount
+                        FROM Stocks s
+                        LEFT JOIN User_Stock us ON s.id = us.stock_id
+                        WHERE s.id = 1
+                        GROUP BY s.amount"""));
+    }
+
+    private static List<Integer> appliedVersions() {
+        return query("SELECT version FROM schema_migrations ORDER BY version").stream()
+                .map(Integer::valueOf)
+                .toList();
+    }
+
+    private static String explain(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET enable_seqscan = off");
+                    StringJoiner plan = new StringJoiner("\n");
+                    try (ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+                        while (resultSet.next()) {
+                            plan.add(resultSet.getString(1));
+                        }
+                    } finally {
+                        statement.execute("RESET enable_seqscan");
+                    }
+                    return plan.toString();
+                }
+            });
+        }
+    }
+
+    private static List<String> query(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(connection -> {
+                List<String> values = new ArrayList<>();
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(sql)) {
+                    while (resultSet.next()) {
+                        values.add(resultSet.getString(1));
+                    }
+                }
+                return values;
+            });
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package by.mrtorex.businessshark.server.config;
+
+import org.hibernate.cfg.AvailableSettings;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Одноразовая база данных PostgreSQL в контейнере, общая для всех тестов с базой данных.
+ * Параметры подключения передаются Hibernate системными свойствами, которые переопределяют hibernate.properties;
+ * таблицы сущностей создаются Hibernate, после чего {@link SessionConfig} применяет миграции схемы.
+ * Тестовые классы помечаются {@code @Testcontainers(disabledWithoutDocker = true)}, поэтому без Docker
+ * контейнер не запускается, а тесты пропускаются.
+ */
+public final class TestDatabase {
+    private static final String IMAGE = "postgres:16-alpine";
+    private static PostgreSQLContainer<?> postgres;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Запускает контейнер при первом обращении и возвращает конфигурацию базы данных.
+     *
+     * @return конфигурация базы данных в контейнере
+     */
+    public static synchronized SessionConfig start() {
+        if (postgres == null) {
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>(IMAGE);
+            container.start();
+            System.setProperty(AvailableSettings.JAKARTA_JDBC_URL, container.getJdbcUrl());
+            System.setProperty(AvailableSettings.JAKARTA_JDBC_USER, container.getUsername());
+            System.setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, container.getPassword());
+            System.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+            System.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+            postgres = container;
+        }
+        return SessionConfig.getInstance();
+    }
+}
@@ -0,0 +1,178 @@
+package by.mrtorex.businessshark.server.model.entities;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость сброса и слияния акций до и после улучшения байт-кода при сборке.
+ * Улучшенная {@link Stock} сама отмечает изменённые поля, а её неулучшенная копия {@link SnapshotStock}
+ * при каждом сбросе сравнивается со снимком состояния, поэтому сброс сессии, в которой загружены
+ * {@code managed} акций и изменена одна, у копии дорожает с числом загруженных акций.
+ * Слияние отсоединённой акции, как в прежнем {@code StockService.updateEntity}, сравнивается отдельно.
+ * База данных — H2 в памяти, чтобы замерялась работа Hibernate, а не сеть.
+ * <p>
+ * Запуск после {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:<тестовый classpath> by.mrtorex.businessshark.server.model.entities.EnhancementBenchmark}.
+ * Тестовый classpath выводит {@code mvn dependency:build-classpath -Dmdep.includeScope=test}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnhancementBenchmark {
+    @Param({"100", "1000"})
+    public int managed;
+
+    private SessionFactory sessionFactory;
+    private Session stockSession;
+    private Session snapshotSession;
+    private List<Stock> stocks;
+    private List<SnapshotStock> snapshotStocks;
+    private Stock detachedStock;
+    private SnapshotStock detachedSnapshotStock;
+
+    /**
+     * Создаёт таблицы в H2, заполняет их и открывает по сессии с загруженными акциями на каждую сущность.
+     */
+    @Setup
+    public void setUp() {
+        if (!SelfDirtinessTracker.class.isAssignableFrom(Stock.class)
+                || SelfDirtinessTracker.class.isAssignableFrom(SnapshotStock.class)) {
+            throw new IllegalStateException("Stock должна быть улучшена при сборке, а SnapshotStock — нет");
+        }
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Stock.class)
+                .addAnnotatedClass(SnapshotStock.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_DRIVER, "org.h2.Driver")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:enhancement;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < managed + 1; i++) {
+                Stock stock = new Stock();
+                stock.setTicket("S" + i);
+                stock.setPrice(100.0);
+                stock.setAmount(1000);
+                session.persist(stock);
+                SnapshotStock snapshotStock = new SnapshotStock();
+                snapshotStock.setTicket("S" + i);
+                snapshotStock.setPrice(100.0);
+                snapshotStock.setAmount(1000);
+                session.persist(snapshotStock);
+            }
+        });
+
+        // Последняя акция не загружается в открытые сессии и обновляется слиянием
+        stockSession = sessionFactory.openSession();
+        stockSession.beginTransaction();
+        stocks = stockSession.createQuery("FROM Stock ORDER BY id", Stock.class).setMaxResults(managed).list();
+        snapshotSession = sessionFactory.openSession();
+        snapshotSession.beginTransaction();
+        snapshotStocks = snapshotSession.createQuery("FROM SnapshotStock ORDER BY id", SnapshotStock.class)
+                .setMaxResults(managed).list();
+        detachedStock = sessionFactory.fromSession(session ->
+                session.createQuery("FROM Stock ORDER BY id DESC", Stock.class).setMaxResults(1).getSingleResult());
+        detachedSnapshotStock = sessionFactory.fromSession(session ->
+                session.createQuery("FROM SnapshotStock ORDER BY id DESC", SnapshotStock.class)
+                        .setMaxResults(1).getSingleResult());
+    }
+
+    /**
+     * Откатывает открытые транзакции и удаляет таблицы.
+     */
+    @TearDown
+    public void tearDown() {
+        stockSession.getTransaction().rollback();
+        stockSession.close();
+        snapshotSession.getTransaction().rollback();
+        snapshotSession.close();
+        sessionFactory.close();
+    }
+
+    /**
+     * Сброс после изменения одной из загруженных улучшенных акций.
+     *
+     * @return новая версия акции
+     */
+    @Benchmark
+    public Integer flushEnhanced() {
+        Stock stock = stocks.get(0);
+        stock.setPrice(stock.getPrice() + 1);
+        stockSession.flush();
+        return stock.getVersion();
+    }
+
+    /**
+     * Сброс после изменения одной из загруженных неулучшенных акций.
+     *
+     * @return новая версия акции
+     */
+    @Benchmark
+    public Integer flushSnapshot() {
+        SnapshotStock stock = snapshotStocks.get(0);
+        stock.setPrice(stock.getPrice() + 1);
+        snapshotSession.flush();
+        return stock.getVersion();
+    }
+
+    /**
+     * Слияние отсоединённой улучшенной акции с новой ценой в отдельной транзакции.
+     *
+     * @return новая версия акции
+     */
+    @Benchmark
+    public Integer mergeEnhanced() {
+        detachedStock.setPrice(detachedStock.getPrice() + 1);
+        detachedStock = sessionFactory.fromTransaction(session -> session.merge(detachedStock));
+        return detachedStock.getVersion();
+    }
+
+    /**
+     * Слияние отсоединённой неулучшенной акции с новой ценой в отдельной транзакции.
+     *
+     * @return новая версия акции
+     */
+    @Benchmark
+    public Integer mergeSnapshot() {
+        detachedSnapshotStock.setPrice(detachedSnapshotStock.getPrice() + 1);
+        detachedSnapshotStock = sessionFactory.fromTransaction(session -> session.merge(detachedSnapshotStock));
+        return detachedSnapshotStock.getVersion();
+    }
+
+    /**
+     * Точка входа бенчмарка.
+     *
+     * @param args не используются
+     * @throws RunnerException при ошибке запуска
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EnhancementBenchmark.class.getSimpleName()).build()).run();
+    }
+}
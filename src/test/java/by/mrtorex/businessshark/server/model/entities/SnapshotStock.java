@@ -0,0 +1,33 @@
+package by.mrtorex.businessshark.server.model.entities;
+
+import jakarta.persistence.*;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Копия {@link Stock} без улучшения байт-кода: тестовые классы плагин Hibernate не обрабатывает,
+ * поэтому изменения этой сущности находятся сравнением со снимком состояния, как до включения улучшения.
+ */
+@Entity
+@Table(name = "Snapshot_Stocks")
+@Getter
+@Setter
+public class SnapshotStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "ticket", nullable = false, length = 5)
+    private String ticket;
+
+    @Column(name = "price", nullable = false)
+    private Double price;
+
+    @Column(name = "amount", nullable = false)
+    private Integer amount;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version;
+}
@@ -0,0 +1,75 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.config.SessionConfig;
+import by.mrtorex.businessshark.server.config.TestDatabase;
+import by.mrtorex.businessshark.server.model.entities.Stock;
+import by.mrtorex.businessshark.server.utils.Deadline;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Проверка переноса крайнего срока запроса клиента на транзакции: транзакция, в том числе в сессии
+ * только для чтения, получает {@code statement_timeout} по оставшемуся времени, а изменения данных
+ * в пределах срока выполняются.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class QueryDeadlineTest {
+    private static final long DEADLINE_SECONDS = 30;
+
+    private static SessionConfig database;
+
+    @BeforeAll
+    static void startDatabase() {
+        database = TestDatabase.start();
+    }
+
+    @Test
+    void limitsReadTransactionStatements() {
+        String timeout = withDeadline(() -> {
+            try (Session session = database.openReadSession()) {
+                Transaction tx = session.beginTransaction();
+                QueryDeadline.apply(session);
+                String value = session.createNativeQuery("SHOW statement_timeout", String.class).getSingleResult();
+                tx.rollback();
+                return value;
+            }
+        });
+
+        assertNotEquals("0", timeout);
+    }
+
+    @Test
+    void savesWithinDeadline() {
+        Stock stock = new Stock();
+        stock.setTicket("DEAD");
+        stock.setPrice(1.0);
+        stock.setAmount(1);
+        StockDAO stockDAO = new StockDAO();
+
+        withDeadline(() -> {
+            stockDAO.save(stock);
+            return null;
+        });
+
+        Stock saved = stockDAO.findByTicket("DEAD");
+        assertNotNull(saved);
+        assertEquals(stock.getId(), saved.getId());
+    }
+
+    private static <T> T withDeadline(Supplier<T> action) {
+        return Deadline.call(System.nanoTime() + TimeUnit.SECONDS.toNanos(DEADLINE_SECONDS), action);
+    }
+}
@@ -0,0 +1,88 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.config.TestDatabase;
+import by.mrtorex.businessshark.server.model.entities.Person;
+import by.mrtorex.businessshark.server.model.entities.Role;
+import by.mrtorex.businessshark.server.model.entities.User;
+
+import org.hibernate.stat.Statistics;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка по статистике Hibernate, что поиск пользователей загружает роль и персону тем же запросом:
+ * каждый поиск выполняет ровно одну SQL-команду, а связи доступны после закрытия сессии без новых запросов.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserDAOTest {
+    private static final String PREFIX = "statistics-";
+    private static final int USERS = 3;
+
+    private static final UserDAO userDAO = new UserDAO();
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void createUsers() {
+        statistics = TestDatabase.start().getSessionFactory().getStatistics();
+        Role role = new Role(null, PREFIX + "role");
+        new RoleDAO().save(role);
+        for (int i = 0; i < USERS; i++) {
+            Person person = new Person();
+            person.setFirstName("Имя" + i);
+            person.setLastName("Фамилия" + i);
+            User user = new User();
+            user.setUsername(PREFIX + i);
+            user.setPasswordHash("0".repeat(64));
+            user.setRole(role);
+            user.setPerson(person);
+            userDAO.save(user);
+        }
+    }
+
+    @Test
+    void findByIdIsSingleStatement() {
+        int id = userDAO.findByLogin(PREFIX + 0).getId();
+        statistics.clear();
+
+        User user = userDAO.findById(id);
+
+        assertLoadedWithRelations(user);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByLoginIsSingleStatement() {
+        statistics.clear();
+
+        User user = userDAO.findByLogin(PREFIX + 1);
+
+        assertLoadedWithRelations(user);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllIsSingleStatement() {
+        statistics.clear();
+
+        List<User> users = userDAO.findAll();
+
+        assertTrue(users.size() >= USERS);
+        users.forEach(UserDAOTest::assertLoadedWithRelations);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static void assertLoadedWithRelations(User user) {
+        assertNotNull(user);
+        assertNotNull(user.getRole().getName());
+        assertNotNull(user.getPerson().getLastName());
+    }
+}
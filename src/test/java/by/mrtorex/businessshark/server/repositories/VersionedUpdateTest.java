@@ -0,0 +1,98 @@
+package by.mrtorex.businessshark.server.repositories;
+
+import by.mrtorex.businessshark.server.config.TestDatabase;
+import by.mrtorex.businessshark.server.exceptions.ResponseException;
+import by.mrtorex.businessshark.server.model.entities.Stock;
+import by.mrtorex.businessshark.server.services.StockService;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка условного обновления по версии на примере акций: обновление с текущей версией применяется,
+ * обновление с устаревшей версией отклоняется с предложением обновить данные и не изменяет строку,
+ * а обновление без версии в режиме совместимости по умолчанию применяется без условия по версии.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class VersionedUpdateTest {
+    private static final String TICKET = "VERS";
+
+    private static StockDAO stockDAO;
+    private static StockService stockService;
+    private Stock stock;
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+        stockDAO = new StockDAO();
+        stockService = new StockService();
+        Stock stock = new Stock();
+        stock.setTicket(TICKET);
+        stock.setPrice(100.0);
+        stock.setAmount(10);
+        stockDAO.save(stock);
+    }
+
+    @BeforeEach
+    void loadStock() {
+        stock = stockDAO.findByTicket(TICKET);
+    }
+
+    @Test
+    void updatesCurrentVersion() {
+        stock.setPrice(stock.getPrice() + 1);
+
+        stockService.updateEntity(stock);
+
+        Stock updated = stockDAO.findByTicket(TICKET);
+        assertEquals(stock.getPrice(), updated.getPrice());
+        assertEquals(stock.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void rejectsStaleVersion() {
+        Stock stale = copy(stock);
+        stale.setVersion(stock.getVersion() - 1);
+        stale.setPrice(-1.0);
+
+        assertRejected(stale);
+    }
+
+    @Test
+    void updatesWithoutVersionAsLastWriteWins() {
+        Stock unversioned = copy(stock);
+        unversioned.setVersion(null);
+        unversioned.setPrice(stock.getPrice() + 1);
+
+        stockService.updateEntity(unversioned);
+
+        Stock updated = stockDAO.findByTicket(TICKET);
+        assertEquals(unversioned.getPrice(), updated.getPrice());
+        assertEquals(stock.getVersion() + 1, updated.getVersion());
+    }
+
+    private void assertRejected(Stock update) {
+        ResponseException e = assertThrows(ResponseException.class, () -> stockService.updateEntity(update));
+        assertTrue(e.getMessage().contains("обновите данные"), e.getMessage());
+        Stock unchanged = stockDAO.findByTicket(TICKET);
+        assertEquals(stock.getPrice(), unchanged.getPrice());
+        assertEquals(stock.getVersion(), unchanged.getVersion());
+    }
+
+    private static Stock copy(Stock stock) {
+        Stock copy = new Stock();
+        copy.setId(stock.getId());
+        copy.setTicket(stock.getTicket());
+        copy.setPrice(stock.getPrice());
+        copy.setAmount(stock.getAmount());
+        copy.setVersion(stock.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,141 @@
+package by.mrtorex.businessshark.server.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение стоимости проверки лимита {@link TokenBucket} с классическим ведром токенов под монитором,
+ * каким ограничитель частоты запросов был бы без упакованного состояния, и с проверкой без ограничителя.
+ * Замеряется одно соединение без конкуренции и одно общее ведро, например ведро входа по имени пользователя,
+ * под нагрузкой восьми потоков.
+ * <p>
+ * Запуск после {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:<тестовый classpath> by.mrtorex.businessshark.server.utils.TokenBucketBenchmark}.
+ * Тестовый classpath выводит {@code mvn dependency:build-classpath -Dmdep.includeScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBucketBenchmark {
+    private static final long INTERVAL_MILLIS = 1;
+    private static final int BURST = 1_000_000;
+
+    private TokenBucket tokenBucket;
+    private SynchronizedBucket synchronizedBucket;
+
+    /**
+     * Создаёт вёдра с одинаковыми параметрами.
+     */
+    @Setup
+    public void setUp() {
+        tokenBucket = new TokenBucket(INTERVAL_MILLIS, BURST);
+        synchronizedBucket = new SynchronizedBucket(INTERVAL_MILLIS, BURST);
+    }
+
+    /**
+     * Проверка без ограничителя.
+     *
+     * @return результат проверки
+     */
+    @Benchmark
+    public long noLimiter() {
+        return 0;
+    }
+
+    /**
+     * Неблокирующее ведро, один поток.
+     *
+     * @return результат проверки
+     */
+    @Benchmark
+    public long tokenBucket() {
+        return tokenBucket.tryAcquire();
+    }
+
+    /**
+     * Ведро под монитором, один поток.
+     *
+     * @return результат проверки
+     */
+    @Benchmark
+    public long synchronizedBucket() {
+        return synchronizedBucket.tryAcquire();
+    }
+
+    /**
+     * Неблокирующее ведро, восемь потоков.
+     *
+     * @return результат проверки
+     */
+    @Benchmark
+    @Threads(8)
+    public long tokenBucketContended() {
+        return tokenBucket.tryAcquire();
+    }
+
+    /**
+     * Ведро под монитором, восемь потоков.
+     *
+     * @return результат проверки
+     */
+    @Benchmark
+    @Threads(8)
+    public long synchronizedBucketContended() {
+        return synchronizedBucket.tryAcquire();
+    }
+
+    /**
+     * Точка входа бенчмарка.
+     *
+     * @param args не используются
+     * @throws RunnerException при ошибке запуска
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenBucketBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Ведро токенов с дробным числом токенов и временем пополнения в наносекундах под монитором.
+     */
+    static final class SynchronizedBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        SynchronizedBucket(long intervalMillis, int burst) {
+            this.tokensPerNano = 1.0 / TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            this.capacity = burst;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis((long) Math.ceil((1 - tokens) / tokensPerNano)) + 1;
+        }
+    }
+}